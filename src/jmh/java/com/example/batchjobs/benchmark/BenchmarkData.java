@@ -0,0 +1,83 @@
+package com.example.batchjobs.benchmark;
+
+import com.example.batchjobs.model.DataRecord;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic input generators shared by the benchmarks.
+ */
+public final class BenchmarkData {
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ ";
+    private static final String DIGITS = "0123456789";
+    private static final String SPECIALS = "!@#$%^&*()_+=[]{};:'\"<>/?|~`\\";
+    private static final String[] EXTENSIONS = {".csv", ".txt", ".dat", ".xml"};
+
+    private BenchmarkData() {
+    }
+
+    public static List<String> csvLines(int count, int fieldLength, double specialDensity, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder(5 * (fieldLength + 1));
+            for (int field = 0; field < 5; field++) {
+                if (field > 0) {
+                    line.append(',');
+                }
+                // Every other field carries digits so both upper-casing paths are exercised
+                line.append(text(random, fieldLength, specialDensity, field % 2 == 1));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    public static List<DataRecord> records(int count, int fieldLength, double specialDensity,
+                                           double nullRatio, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<DataRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DataRecord record = new DataRecord();
+            record.setId((long) i + 1);
+            record.setField1(nullable(random, nullRatio, fieldLength, specialDensity));
+            record.setField2(nullable(random, nullRatio, fieldLength, specialDensity));
+            record.setField3(nullable(random, nullRatio, fieldLength, specialDensity));
+            record.setCreatedAt(base.plusSeconds(random.nextInt(365 * 24 * 3600)).plusNanos(random.nextInt(1_000_000) * 1000L));
+            records.add(record);
+        }
+        return records;
+    }
+
+    public static List<String> fileNames(int count, int nameLength, long seed) {
+        Random random = new Random(seed);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(text(random, nameLength, 0, true).replace(' ', '_') + EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+        }
+        return names;
+    }
+
+    private static String nullable(Random random, double nullRatio, int length, double specialDensity) {
+        return random.nextDouble() < nullRatio ? null : text(random, length, specialDensity, random.nextBoolean());
+    }
+
+    private static String text(Random random, int length, double specialDensity, boolean withDigits) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            double roll = random.nextDouble();
+            if (roll < specialDensity) {
+                text.append(SPECIALS.charAt(random.nextInt(SPECIALS.length())));
+            } else if (withDigits && roll < specialDensity + 0.2) {
+                text.append(DIGITS.charAt(random.nextInt(DIGITS.length())));
+            } else {
+                text.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.batchjobs.benchmark;
+
+import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.writer.DataRecordCsvEncoder;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes records the way the database export writer does, into a sink that discards the bytes:
+ * through {@code CSVPrinter} as it used to and through {@link DataRecordCsvEncoder}. Setup fails
+ * unless both produce the same bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvSerializationBenchmark {
+    private static final int BATCH = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"8", "64"})
+    public int fieldLength;
+
+    @Param({"0.0", "0.1"})
+    public double specialDensity;
+
+    @Param({"0.0", "0.2"})
+    public double nullRatio;
+
+    private List<DataRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        records = BenchmarkData.records(BATCH, fieldLength, specialDensity, nullRatio, 42);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        printRecords(printed);
+        encodeRecords(encoded);
+        if (!Arrays.equals(printed.toByteArray(), encoded.toByteArray())) {
+            throw new IllegalStateException("DataRecordCsvEncoder output differs from CSVPrinter");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void csvPrinter() throws IOException {
+        printRecords(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void encoder() throws IOException {
+        encodeRecords(OutputStream.nullOutputStream());
+    }
+
+    private void printRecords(OutputStream sink) throws IOException {
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (CSVPrinter csvPrinter = new CSVPrinter(out, CSVFormat.DEFAULT.builder()
+                .setHeader("ID", "Field1", "Field2", "Field3", "Created At")
+                .build())) {
+            for (DataRecord record : records) {
+                csvPrinter.printRecord(
+                        record.getId(),
+                        record.getField1(),
+                        record.getField2(),
+                        record.getField3(),
+                        record.getCreatedAt()
+                );
+            }
+        }
+    }
+
+    private void encodeRecords(OutputStream sink) throws IOException {
+        try (DataRecordCsvEncoder encoder = new DataRecordCsvEncoder(sink, BUFFER_SIZE)) {
+            encoder.writeHeader();
+            for (DataRecord record : records) {
+                encoder.write(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.batchjobs.benchmark;
+
+import com.example.batchjobs.BatchJobsApplication;
+import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.repository.DataRecordIdAllocator;
+import com.example.batchjobs.writer.DataRecordBulkWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.Chunk;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the real jobs end to end against an in-process SFTP server (Apache MINA SSHD) and an
+ * in-memory H2 database, so throughput can be measured without any external system.
+ *
+ * <p>Options: {@code --rows=N} records seeded into {@code data_records} (default 1000000),
+ * {@code --files=N} and {@code --file-size-mb=N} for the generated input files (default 4 x 16),
+ * {@code --field-length=N} characters per generated field (default 32), {@code --run=a,b} to pick
+ * jobs (default all three), {@code --out=path} for the JSON report and {@code --keep} to leave the
+ * working directory behind. Any other {@code --key=value} is handed to the application, e.g.
+ * {@code --jobs.codec.database-to-sftp=gzip}.
+ */
+public final class EndToEndBenchmark {
+    private static final List<String> ALL_JOBS = List.of("databaseToSftpJob", "fileToSftpJob", "sftpToFileJob");
+    private static final String USER = "bench";
+    private static final int SEED_BATCH = 10_000;
+    private static final double MB = 1024.0 * 1024.0;
+
+    private EndToEndBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            String key = option.contains("=") ? option.substring(0, option.indexOf('=')) : option;
+            if (List.of("rows", "files", "file-size-mb", "field-length", "run", "out", "keep").contains(key)) {
+                options.put(key, option.contains("=") ? option.substring(option.indexOf('=') + 1) : "true");
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        long rows = Long.parseLong(options.getOrDefault("rows", "1000000"));
+        int files = Integer.parseInt(options.getOrDefault("files", "4"));
+        int fileSizeMb = Integer.parseInt(options.getOrDefault("file-size-mb", "16"));
+        int fieldLength = Integer.parseInt(options.getOrDefault("field-length", "32"));
+        List<String> jobs = options.containsKey("run") ? Arrays.asList(options.get("run").split(",")) : ALL_JOBS;
+        Path out = Paths.get(options.getOrDefault("out", "target/e2e-result.json"));
+
+        Path workDir = Files.createTempDirectory("batch-e2e-");
+        Path sftpRoot = Files.createDirectories(workDir.resolve("sftp"));
+        Files.createDirectories(sftpRoot.resolve("in"));
+        Files.createDirectories(sftpRoot.resolve("out"));
+        SshServer sftpServer = startSftpServer(workDir, sftpRoot);
+        try (ConfigurableApplicationContext context = startApplication(workDir, sftpServer.getPort(), applicationArgs)) {
+            if (jobs.contains("databaseToSftpJob")) {
+                seedRecords(context, rows, fieldLength);
+            }
+            if (jobs.contains("fileToSftpJob")) {
+                generateFiles(workDir.resolve("input"), ".txt", files, fileSizeMb, fieldLength);
+            }
+            if (jobs.contains("sftpToFileJob")) {
+                generateFiles(sftpRoot.resolve("in"), ".csv", files, fileSizeMb, fieldLength);
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (String jobName : jobs) {
+                results.add(runJob(context, jobName.trim()));
+            }
+            report(results, out);
+        } finally {
+            sftpServer.stop(true);
+            if (!options.containsKey("keep")) {
+                FileSystemUtils.deleteRecursively(workDir);
+            }
+        }
+    }
+
+    private static SshServer startSftpServer(Path workDir, Path root) throws IOException {
+        SshServer server = SshServer.setUpDefaultServer();
+        server.setHost("localhost");
+        server.setPort(0);
+        // EC host key: JSch 0.1.55 can verify ecdsa-sha2-nistp256 but no rsa-sha2-* signatures
+        SimpleGeneratorHostKeyProvider hostKeys = new SimpleGeneratorHostKeyProvider(workDir.resolve("host.key"));
+        hostKeys.setAlgorithm("EC");
+        hostKeys.setKeySize(256);
+        server.setKeyPairProvider(hostKeys);
+        server.setPasswordAuthenticator((username, password, session) -> USER.equals(username) && USER.equals(password));
+        server.setSubsystemFactories(List.of(new SftpSubsystemFactory()));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        server.start();
+        System.out.printf("Embedded SFTP server listening on localhost:%d%n", server.getPort());
+        return server;
+    }
+
+    private static ConfigurableApplicationContext startApplication(Path workDir, int sftpPort, List<String> args) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.main.web-application-type", "none");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:e2e;DB_CLOSE_DELAY=-1");
+        properties.put("sftp.host", "localhost");
+        properties.put("sftp.port", sftpPort);
+        properties.put("sftp.username", USER);
+        properties.put("sftp.password", USER);
+        properties.put("sftp.remote.directory.input", "/in");
+        properties.put("sftp.remote.directory.output", "/out");
+        for (String directory : List.of("input", "output", "temp", "archive")) {
+            properties.put("file.local.directory." + directory, workDir.resolve(directory).toString());
+        }
+        for (String job : List.of("database-to-sftp", "file-to-sftp", "sftp-to-file", "sftp-to-database")) {
+            properties.put("jobs.scheduler." + job, "-");
+        }
+        // Every run exports the whole seeded table
+        properties.put("jobs.database-to-sftp.incremental", "false");
+        properties.put("management.metrics.distribution.percentiles.batch.chunk.duration", "0.99");
+        properties.put("management.metrics.distribution.expiry.batch.chunk.duration", "1h");
+        return new SpringApplicationBuilder(BatchJobsApplication.class)
+                .properties(properties)
+                .run(args.toArray(new String[0]));
+    }
+
+    private static void seedRecords(ConfigurableApplicationContext context, long rows, int fieldLength) {
+        DataRecordBulkWriter writer = new DataRecordBulkWriter(context.getBean(DataSource.class),
+                context.getBean(DataRecordIdAllocator.class), 100);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        long start = System.nanoTime();
+        for (long seeded = 0; seeded < rows; seeded += SEED_BATCH) {
+            List<DataRecord> batch = BenchmarkData.records((int) Math.min(SEED_BATCH, rows - seeded),
+                    fieldLength, 0.05, 0.05, seeded);
+            batch.forEach(record -> record.setId(null));
+            transaction.executeWithoutResult(status -> writer.write(new Chunk<>(batch)));
+        }
+        System.out.printf("Seeded %d rows in %.1f s%n", rows, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void generateFiles(Path directory, String extension, int count, int sizeMb, int fieldLength)
+            throws IOException {
+        Files.createDirectories(directory);
+        long targetBytes = sizeMb * 1024L * 1024L;
+        for (int i = 0; i < count; i++) {
+            Path file = directory.resolve(String.format("bench_%03d%s", i, extension));
+            long written = 0;
+            long seed = i;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                while (written < targetBytes) {
+                    for (String line : BenchmarkData.csvLines(1000, fieldLength, 0.05, seed++)) {
+                        writer.write(line);
+                        writer.write('\n');
+                        written += line.length() + 1;
+                    }
+                }
+            }
+        }
+        System.out.printf("Generated %d x %d MB in %s%n", count, sizeMb, directory);
+    }
+
+    private static Map<String, Object> runJob(ConfigurableApplicationContext context, String jobName) throws Exception {
+        Job job = context.getBean(jobName, Job.class);
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        double itemsBefore = itemsWritten(registry);
+        double bytesBefore = bytesTransferred(registry);
+        long start = System.nanoTime();
+        // The launcher is synchronous, so this returns once the job has finished
+        JobExecution execution = context.getBean(JobLauncher.class).run(job, new JobParametersBuilder()
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        double items = itemsWritten(registry) - itemsBefore;
+        double megabytes = (bytesTransferred(registry) - bytesBefore) / MB;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("job", jobName);
+        result.put("status", execution.getStatus().toString());
+        result.put("seconds", seconds);
+        result.put("items", (long) items);
+        result.put("itemsPerSecond", items / seconds);
+        result.put("megabytes", megabytes);
+        result.put("megabytesPerSecond", megabytes / seconds);
+        result.put("p99ChunkMillis", p99ChunkMillis(registry, execution));
+        result.put("peakHeapMegabytes", peakHeap / MB);
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            execution.getAllFailureExceptions().forEach(e -> System.err.println(jobName + ": " + e));
+        }
+        return result;
+    }
+
+    private static double itemsWritten(MeterRegistry registry) {
+        return registry.find("batch.items").tag("stage", "written").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static double bytesTransferred(MeterRegistry registry) {
+        return registry.find("sftp.transfer.bytes").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+    }
+
+    private static double p99ChunkMillis(MeterRegistry registry, JobExecution execution) {
+        double p99 = 0;
+        for (StepExecution stepExecution : execution.getStepExecutions()) {
+            // Partition workers run as "<step>:partitionN" but are measured under the step name
+            String stepName = stepExecution.getStepName().split(":")[0];
+            for (Timer timer : registry.find("batch.chunk.duration").tag("step", stepName).timers()) {
+                for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                    p99 = Math.max(p99, percentile.value(TimeUnit.MILLISECONDS));
+                }
+            }
+        }
+        return p99;
+    }
+
+    private static void report(List<Map<String, Object>> results, Path out) throws IOException {
+        System.out.printf("%n%-20s %-10s %9s %12s %12s %10s %9s %12s %14s%n", "job", "status", "seconds",
+                "items", "items/s", "MB", "MB/s", "p99 chunk ms", "peak heap MB");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-20s %-10s %9.1f %12d %12.0f %10.1f %9.1f %12.1f %14.0f%n",
+                    result.get("job"), result.get("status"), result.get("seconds"), result.get("items"),
+                    result.get("itemsPerSecond"), result.get("megabytes"), result.get("megabytesPerSecond"),
+                    result.get("p99ChunkMillis"), result.get("peakHeapMegabytes"));
+        }
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), results);
+        System.out.printf("%nResults written to %s%n", out.toAbsolutePath());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.batchjobs.benchmark;
+
+import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.processor.DatabaseItemProcessor;
+import com.example.batchjobs.processor.FileItemProcessor;
+import com.example.batchjobs.processor.SftpItemProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemProcessorBenchmark {
+    private static final int BATCH = 1024;
+
+    @Param({"8", "64"})
+    public int fieldLength;
+
+    @Param({"0.0", "0.1"})
+    public double specialDensity;
+
+    @Param({"0.0", "0.2"})
+    public double nullRatio;
+
+    private final FileItemProcessor fileItemProcessor = new FileItemProcessor();
+    private final DatabaseItemProcessor databaseItemProcessor = new DatabaseItemProcessor();
+    private final SftpItemProcessor sftpItemProcessor = new SftpItemProcessor();
+
+    private List<String> lines;
+    private List<DataRecord> records;
+    private List<String> fileNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lines = BenchmarkData.csvLines(BATCH, fieldLength, specialDensity, 42);
+        records = BenchmarkData.records(BATCH, fieldLength, specialDensity, nullRatio, 42);
+        fileNames = BenchmarkData.fileNames(BATCH, fieldLength, 42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void fileItemProcessor(Blackhole blackhole) throws Exception {
+        for (String line : lines) {
+            blackhole.consume(fileItemProcessor.process(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void databaseItemProcessor(Blackhole blackhole) throws Exception {
+        for (DataRecord record : records) {
+            blackhole.consume(databaseItemProcessor.process(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void sftpItemProcessor(Blackhole blackhole) throws Exception {
+        for (String fileName : fileNames) {
+            blackhole.consume(sftpItemProcessor.process(fileName));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.batchjobs.benchmark;
+
+import com.example.batchjobs.BatchJobsApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application repeatedly in fresh JVMs and measures time to ready: the "process running
+ * for" figure Spring Boot logs once the context is up, and the wall time until the JVM has exited
+ * again through {@code -Dspring.context.exit=onRefresh}. The SFTP host is left unresolvable, so
+ * the runs also show that startup does not depend on the server.
+ *
+ * <p>Options: {@code --runs=N} measured starts per variant (default 5, after one discarded warm-up
+ * start), {@code --jar=path} to start a packaged jar instead of the benchmark classpath,
+ * {@code --variant=label:options} with comma separated JVM options (repeatable, default one
+ * variant without options) and {@code --out=path} for the JSON report. Any other
+ * {@code --key=value} is handed to the application. A variant with
+ * {@code -XX:SharedArchiveFile=...} dumps that class data sharing archive in its first start.
+ */
+public final class StartupBenchmark {
+    private static final Pattern STARTED = Pattern.compile(
+            "Started \\S+ in ([0-9.]+) seconds \\(process running for ([0-9.]+)\\)");
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            String key = option.contains("=") ? option.substring(0, option.indexOf('=')) : option;
+            String value = option.contains("=") ? option.substring(option.indexOf('=') + 1) : "";
+            if (key.equals("variant")) {
+                String label = value.contains(":") ? value.substring(0, value.indexOf(':')) : value;
+                String jvmOptions = value.contains(":") ? value.substring(value.indexOf(':') + 1).trim() : "";
+                variants.put(label, jvmOptions.isEmpty() ? List.of() : Arrays.asList(jvmOptions.split(",")));
+            } else if (List.of("runs", "jar", "out").contains(key)) {
+                options.put(key, value);
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        if (variants.isEmpty()) {
+            variants.put("default", List.of());
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Path out = Paths.get(options.getOrDefault("out", "target/startup-result.json"));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+            List<String> command = command(variant.getValue(), options.get("jar"), applicationArgs);
+            // The first start warms the file system cache (and dumps the CDS archive) and is not counted
+            start(command.stream()
+                    .map(part -> part.replace("-XX:SharedArchiveFile=", "-XX:ArchiveClassesAtExit="))
+                    .toList());
+            List<double[]> samples = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                samples.add(start(command));
+            }
+            results.add(summary(variant.getKey(), samples));
+        }
+        report(results, out);
+    }
+
+    private static List<String> command(List<String> jvmOptions, String jar, List<String> applicationArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Dspring.context.exit=onRefresh");
+        if (jar != null) {
+            command.add("-jar");
+            command.add(jar);
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(BatchJobsApplication.class.getName());
+        }
+        command.add("--server.port=0");
+        command.add("--sftp.host=sftp.invalid");
+        // The benchmark logback configuration silences the application, including the startup line
+        command.add("--logging.level." + BatchJobsApplication.class.getName() + "=INFO");
+        command.addAll(applicationArgs);
+        return command;
+    }
+
+    /**
+     * Returns the logged process time to ready and the wall time until exit, both in milliseconds.
+     */
+    private static double[] start(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        double readyMillis = Double.NaN;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                Matcher matcher = STARTED.matcher(line);
+                if (matcher.find()) {
+                    readyMillis = Double.parseDouble(matcher.group(2)) * 1000;
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        double exitMillis = (System.nanoTime() - start) / 1e6;
+        if (exitCode != 0 || Double.isNaN(readyMillis)) {
+            throw new IllegalStateException("Application did not start cleanly (exit code " + exitCode + "): " + command);
+        }
+        return new double[]{readyMillis, exitMillis};
+    }
+
+    private static Map<String, Object> summary(String variant, List<double[]> samples) {
+        double[] ready = samples.stream().mapToDouble(sample -> sample[0]).sorted().toArray();
+        double[] exit = samples.stream().mapToDouble(sample -> sample[1]).sorted().toArray();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("variant", variant);
+        result.put("runs", samples.size());
+        result.put("readyMillisMedian", ready[ready.length / 2]);
+        result.put("readyMillisMin", ready[0]);
+        result.put("readyMillisMax", ready[ready.length - 1]);
+        result.put("exitMillisMedian", exit[exit.length / 2]);
+        return result;
+    }
+
+    private static void report(List<Map<String, Object>> results, Path out) throws IOException {
+        System.out.printf("%n%-20s %5s %12s %10s %10s %13s%n", "variant", "runs", "ready ms p50",
+                "ready min", "ready max", "exit ms p50");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-20s %5d %12.0f %10.0f %10.0f %13.0f%n", result.get("variant"), result.get("runs"),
+                    result.get("readyMillisMedian"), result.get("readyMillisMin"), result.get("readyMillisMax"),
+                    result.get("exitMillisMedian"));
+        }
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), results);
+        System.out.printf("%nResults written to %s%n", out.toAbsolutePath());
+    }
+}
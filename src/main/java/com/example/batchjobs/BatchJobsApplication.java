@@ -2,12 +2,17 @@ package com.example.batchjobs;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
 public class BatchJobsApplication {
     public static void main(String[] args) {
-        SpringApplication.run(BatchJobsApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(BatchJobsApplication.class, args);
+        // Training run for a class data sharing archive: every class startup needs has been loaded by now
+        if ("onRefresh".equals(System.getProperty("spring.context.exit"))) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
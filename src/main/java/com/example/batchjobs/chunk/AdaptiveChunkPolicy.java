@@ -0,0 +1,143 @@
+package com.example.batchjobs.chunk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+
+/**
+ * Completion policy whose chunk size follows the measured commit latency. After every full chunk
+ * the size is scaled towards {@code targetCommitMillis} (at most doubling or halving per chunk),
+ * a growth step that lowered throughput is undone, and growth stops while free heap is below
+ * {@code minFreeHeapRatio}. A failed chunk halves the size.
+ *
+ * <p>One instance belongs to one step definition; partition workers share the size but measure
+ * their own chunks.
+ */
+@Slf4j
+public class AdaptiveChunkPolicy extends CompletionPolicySupport implements ChunkListener {
+    private static final double MAX_STEP = 2.0;
+    private static final double THROUGHPUT_TOLERANCE = 0.9;
+
+    private final String stepName;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetCommitNanos;
+    private final double minFreeHeapRatio;
+    private final ThreadLocal<long[]> chunkStart = new ThreadLocal<>();
+
+    private volatile int chunkSize;
+    private int previousSize;
+    private double previousThroughput;
+
+    public AdaptiveChunkPolicy(String stepName, int initialSize, int minSize, int maxSize,
+                               long targetCommitMillis, double minFreeHeapRatio) {
+        this.stepName = stepName;
+        this.minSize = Math.max(1, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.targetCommitNanos = targetCommitMillis * 1_000_000L;
+        this.minFreeHeapRatio = minFreeHeapRatio;
+        this.chunkSize = clamp(initialSize);
+        this.previousSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        return new SizedContext(parent, chunkSize);
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context, RepeatStatus result) {
+        return super.isComplete(context, result) || isComplete(context);
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((SizedContext) context).limit;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStart.set(new long[] {System.nanoTime(), readCount(context), chunkSize});
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long[] start = chunkStart.get();
+        chunkStart.remove();
+        if (start == null) {
+            return;
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start[0]);
+        long items = readCount(context) - start[1];
+        // A short chunk means the input ran out; its timing says nothing about the size
+        if (items >= start[2]) {
+            adjust(items, elapsed);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunkStart.remove();
+        synchronized (this) {
+            resize(chunkSize / 2, "chunk failed");
+            previousThroughput = 0;
+        }
+    }
+
+    private synchronized void adjust(long items, long elapsedNanos) {
+        double throughput = items * 1e9 / elapsedNanos;
+        if (chunkSize > previousSize && throughput < previousThroughput * THROUGHPUT_TOLERANCE) {
+            resize(previousSize, "throughput dropped");
+            previousThroughput = 0;
+            return;
+        }
+        previousSize = chunkSize;
+        previousThroughput = throughput;
+
+        double ratio = Math.max(1 / MAX_STEP, Math.min(MAX_STEP, (double) targetCommitNanos / elapsedNanos));
+        int next = (int) Math.round(items * ratio);
+        if (next > chunkSize && isHeapLow()) {
+            next = chunkSize / 2;
+        }
+        resize(next, "commit took " + elapsedNanos / 1_000_000 + " ms");
+    }
+
+    private void resize(int size, String reason) {
+        int next = clamp(size);
+        if (next != chunkSize) {
+            log.debug("Chunk size of {} changed from {} to {} ({})", stepName, chunkSize, next, reason);
+            chunkSize = next;
+        }
+    }
+
+    private boolean isHeapLow() {
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return free < runtime.maxMemory() * minFreeHeapRatio;
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    private static long readCount(ChunkContext context) {
+        return context.getStepContext().getStepExecution().getReadCount();
+    }
+
+    private static class SizedContext extends RepeatContextSupport {
+        private final int limit;
+
+        SizedContext(RepeatContext parent, int limit) {
+            super(parent);
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.batchjobs.chunk;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Starts chunk-oriented steps with an {@link AdaptiveChunkPolicy} and publishes its current size
+ * as {@code batch.chunk.size}. With {@code jobs.chunk.adaptive=false} the initial size stays fixed.
+ */
+@Component
+public class ChunkSizing {
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final boolean adaptive;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetCommitMillis;
+    private final double minFreeHeapRatio;
+
+    public ChunkSizing(JobRepository jobRepository,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${jobs.chunk.adaptive:true}") boolean adaptive,
+                       @Value("${jobs.chunk.min-size:1}") int minSize,
+                       @Value("${jobs.chunk.max-size:20000}") int maxSize,
+                       @Value("${jobs.chunk.target-commit-ms:1000}") long targetCommitMillis,
+                       @Value("${jobs.chunk.min-free-heap-ratio:0.2}") double minFreeHeapRatio) {
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.meterRegistry = meterRegistry;
+        this.adaptive = adaptive;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetCommitMillis = targetCommitMillis;
+        this.minFreeHeapRatio = minFreeHeapRatio;
+    }
+
+    public <I, O> SimpleStepBuilder<I, O> chunk(String stepName, int initialSize) {
+        AdaptiveChunkPolicy policy = adaptive
+                ? new AdaptiveChunkPolicy(stepName, initialSize, minSize, maxSize, targetCommitMillis, minFreeHeapRatio)
+                : new AdaptiveChunkPolicy(stepName, initialSize, initialSize, initialSize, targetCommitMillis, 0);
+        Gauge.builder("batch.chunk.size", policy, AdaptiveChunkPolicy::getChunkSize)
+                .description("Current commit interval of a step")
+                .tag("step", stepName)
+                .register(meterRegistry);
+        SimpleStepBuilder<I, O> step = new StepBuilder(stepName, jobRepository).chunk(policy, transactionManager);
+        step.listener((ChunkListener) policy);
+        return step;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.batchjobs.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class DeflateTransferCodec implements TransferCodec {
+    private final int level;
+
+    public DeflateTransferCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".deflate";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) {
+        Deflater deflater = new Deflater(level, true);
+        return new DeflaterOutputStream(out, deflater, GzipTransferCodec.BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decode(InputStream in) {
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(in, inflater, GzipTransferCodec.BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
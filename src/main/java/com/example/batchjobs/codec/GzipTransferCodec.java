@@ -0,0 +1,47 @@
+package com.example.batchjobs.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class GzipTransferCodec implements TransferCodec {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int level;
+
+    public GzipTransferCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".gz";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+        // GZIPInputStream reads concatenated members, so parallel gzip output decodes here too
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    @Override
+    public boolean isConcatenable() {
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.batchjobs.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class IdentityTransferCodec implements TransferCodec {
+
+    @Override
+    public String getName() {
+        return "none";
+    }
+
+    @Override
+    public String getExtension() {
+        return "";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) {
+        return out;
+    }
+
+    @Override
+    public InputStream decode(InputStream in) {
+        return in;
+    }
+
+    @Override
+    public boolean isConcatenable() {
+        return true;
+    }
+}
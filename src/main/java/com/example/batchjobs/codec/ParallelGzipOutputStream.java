@@ -0,0 +1,125 @@
+package com.example.batchjobs.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Splits the stream into fixed-size blocks, compresses each block as an independent gzip
+ * member on a {@link ForkJoinPool} and writes the members in order. The result is a standard
+ * multi-member gzip stream readable by any gzip decoder. A stream without any data still gets one
+ * empty member, as {@link GZIPOutputStream} writes.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final int level;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+    private byte[] block;
+    private int count;
+    private boolean submitted;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, int level, int blockSize, ForkJoinPool pool) {
+        this.out = out;
+        this.level = level;
+        this.pool = pool;
+        // Bound the read-ahead so memory stays at a few blocks per core
+        this.maxInFlight = pool.getParallelism() * 2;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            submitBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == block.length) {
+                submitBlock();
+            }
+            int n = Math.min(len, block.length - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!inFlight.isEmpty()) {
+            writeOldest();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            if (!submitted) {
+                // Zero bytes is not a valid gzip file
+                out.write(compress(block, 0));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = count;
+        inFlight.addLast(pool.submit(() -> compress(data, length)));
+        submitted = true;
+        block = new byte[data.length];
+        count = 0;
+        while (inFlight.size() >= maxInFlight) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        try {
+            out.write(inFlight.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing block");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress block", e.getCause());
+        }
+    }
+
+    private byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(Math.max(length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member, GzipTransferCodec.BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data, 0, length);
+        }
+        return member.toByteArray();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.batchjobs.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelGzipTransferCodec implements TransferCodec {
+    private final GzipTransferCodec gzip;
+    private final int level;
+    private final int blockSize;
+    private final ForkJoinPool pool;
+
+    public ParallelGzipTransferCodec(int level, int blockSize, ForkJoinPool pool) {
+        this.gzip = new GzipTransferCodec(level);
+        this.level = level;
+        this.blockSize = blockSize;
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return "parallel-gzip";
+    }
+
+    @Override
+    public String getExtension() {
+        return gzip.getExtension();
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) {
+        return new ParallelGzipOutputStream(out, level, blockSize, pool);
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+        return gzip.decode(in);
+    }
+
+    @Override
+    public boolean isConcatenable() {
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.batchjobs.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface TransferCodec {
+
+    String getName();
+
+    /**
+     * Suffix appended to remote file names written with this codec, e.g. {@code .gz}.
+     */
+    String getExtension();
+
+    OutputStream encode(OutputStream out) throws IOException;
+
+    InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * Whether separately encoded segments joined back to back still decode as one stream, so an
+     * interrupted upload can be continued after its last complete segment.
+     */
+    default boolean isConcatenable() {
+        return false;
+    }
+}
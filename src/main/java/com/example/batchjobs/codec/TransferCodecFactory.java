@@ -0,0 +1,62 @@
+package com.example.batchjobs.codec;
+
+import com.example.batchjobs.exception.JobException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Slf4j
+@Component
+public class TransferCodecFactory implements DisposableBean {
+    private final int level;
+    private final int blockSize;
+    private final ForkJoinPool compressionPool;
+
+    public TransferCodecFactory(@Value("${transfer.codec.level:6}") int level,
+                                @Value("${transfer.codec.block-size:1048576}") int blockSize,
+                                @Value("${transfer.codec.parallelism:0}") int parallelism) {
+        this.level = level;
+        this.blockSize = blockSize;
+        this.compressionPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public TransferCodec forName(String name) {
+        if (name == null || name.isBlank()) {
+            return new IdentityTransferCodec();
+        }
+        switch (name.trim().toLowerCase()) {
+            case "none":
+                return new IdentityTransferCodec();
+            case "gzip":
+                return new GzipTransferCodec(level);
+            case "deflate":
+                return new DeflateTransferCodec(level);
+            case "parallel-gzip":
+                return new ParallelGzipTransferCodec(level, blockSize, compressionPool);
+            default:
+                throw new JobException("Unknown transfer codec: " + name);
+        }
+    }
+
+    /**
+     * Picks the decoder for a downloaded file from its extension; unknown extensions pass through.
+     */
+    public TransferCodec forFileName(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".gz")) {
+            return new GzipTransferCodec(level);
+        }
+        if (lower.endsWith(".deflate")) {
+            return new DeflateTransferCodec(level);
+        }
+        return new IdentityTransferCodec();
+    }
+
+    @Override
+    public void destroy() {
+        compressionPool.shutdown();
+    }
+}
@@ -6,9 +6,11 @@ import org.springframework.batch.core.configuration.support.MapJobRegistry;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
 
 @Configuration
 public class BatchConfig {
@@ -29,8 +31,18 @@ public class BatchConfig {
     public JobLauncher jobLauncher(JobRepository jobRepository) throws Exception {
         TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
         jobLauncher.setJobRepository(jobRepository);
-        jobLauncher.setTaskExecutor(new SimpleAsyncTaskExecutor());
+        // Runs on the caller's thread; JobAdmissionService decides when and where jobs run
+        jobLauncher.setTaskExecutor(new SyncTaskExecutor());
         jobLauncher.afterPropertiesSet();
         return jobLauncher;
     }
+
+    @Bean
+    public SimpleAsyncTaskExecutor itemProcessingExecutor(@Value("${jobs.async.concurrency:64}") int concurrency) {
+        // One (virtual) thread per item; the limit blocks the step thread once that many are in flight
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setThreadFactory(VirtualThreads.factory("item-"));
+        executor.setConcurrencyLimit(concurrency);
+        return executor;
+    }
 }
@@ -1,42 +1,61 @@
 package com.example.batchjobs.config;
 
+import com.example.batchjobs.service.JobAdmissionService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.Scheduled;
 
+/**
+ * Cron triggers of the jobs. A trigger that fires while the previous run of the same job is still
+ * running or queued is either queued behind it (folded into an already queued trigger) or, with
+ * {@code jobs.scheduler.overlap=skip}, dropped.
+ */
+@Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class SchedulerConfig {
-    private final JobLauncher jobLauncher;
+    private final JobAdmissionService jobAdmissionService;
     private final Job databaseToSftpJob;
     private final Job fileToSftpJob;
     private final Job sftpToFileJob;
+    private final Job sftpToDatabaseJob;
+
+    @Value("${jobs.scheduler.overlap:queue}")
+    private String overlap;
 
     @Scheduled(cron = "${jobs.scheduler.database-to-sftp}")
-    public void runDatabaseToSftpJob() throws Exception {
-        JobParameters params = new JobParametersBuilder()
-                .addLong("time", System.currentTimeMillis())
-                .toJobParameters();
-        jobLauncher.run(databaseToSftpJob, params);
+    public void runDatabaseToSftpJob() {
+        trigger(databaseToSftpJob);
     }
 
     @Scheduled(cron = "${jobs.scheduler.file-to-sftp}")
-    public void runFileToSftpJob() throws Exception {
-        JobParameters params = new JobParametersBuilder()
-                .addLong("time", System.currentTimeMillis())
-                .toJobParameters();
-        jobLauncher.run(fileToSftpJob, params);
+    public void runFileToSftpJob() {
+        trigger(fileToSftpJob);
     }
 
     @Scheduled(cron = "${jobs.scheduler.sftp-to-file}")
-    public void runSftpToFileJob() throws Exception {
+    public void runSftpToFileJob() {
+        trigger(sftpToFileJob);
+    }
+
+    @Scheduled(cron = "${jobs.scheduler.sftp-to-database}")
+    public void runSftpToDatabaseJob() {
+        trigger(sftpToDatabaseJob);
+    }
+
+    private void trigger(Job job) {
+        if ("skip".equalsIgnoreCase(overlap) && jobAdmissionService.isActive(job.getName())) {
+            log.warn("Job {} is still running or queued, skipping scheduled trigger", job.getName());
+            return;
+        }
         JobParameters params = new JobParametersBuilder()
-                .addLong("time", System.currentTimeMillis())
+                .addLong(JobAdmissionService.TIME_PARAMETER, System.currentTimeMillis())
                 .toJobParameters();
-        jobLauncher.run(sftpToFileJob, params);
+        jobAdmissionService.submit(job, params);
     }
 }
@@ -1,8 +1,7 @@
 package com.example.batchjobs.config;
 
-import com.jcraft.jsch.ChannelSftp;
+import com.example.batchjobs.service.SftpChannelPool;
 import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.Session;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,24 +20,29 @@ public class SftpConfig {
     @Value("${sftp.password}")
     private String sftpPassword;
 
+    @Value("${sftp.pool.max-sessions:2}")
+    private int maxSessions;
+
+    @Value("${sftp.pool.channels-per-session:4}")
+    private int channelsPerSession;
+
+    @Value("${sftp.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMillis;
+
+    @Value("${sftp.pool.max-idle-ms:300000}")
+    private long maxIdleMillis;
+
+    @Value("${sftp.pool.validate-after-idle-ms:10000}")
+    private long validateAfterIdleMillis;
+
     @Bean
     public JSch jsch() {
         return new JSch();
     }
 
     @Bean
-    public Session sftpSession(JSch jsch) throws Exception {
-        Session session = jsch.getSession(sftpUsername, sftpHost, sftpPort);
-        session.setPassword(sftpPassword);
-        session.setConfig("StrictHostKeyChecking", "no");
-        return session;
-    }
-
-    @Bean
-    public ChannelSftp channelSftp(Session session) throws Exception {
-        session.connect();
-        ChannelSftp channel = (ChannelSftp) session.openChannel("sftp");
-        channel.connect();
-        return channel;
+    public SftpChannelPool sftpChannelPool(JSch jsch) {
+        return new SftpChannelPool(jsch, sftpHost, sftpPort, sftpUsername, sftpPassword,
+                maxSessions, channelsPerSession, borrowTimeoutMillis, maxIdleMillis, validateAfterIdleMillis);
     }
 }
@@ -0,0 +1,41 @@
+package com.example.batchjobs.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual-thread factories when running on Java 21+, looked up reflectively so the
+ * project still compiles for the Java 17 baseline; falls back to platform threads otherwise.
+ */
+@Slf4j
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return virtualFactory("probe-") != null;
+    }
+
+    public static ThreadFactory factory(String namePrefix) {
+        ThreadFactory factory = virtualFactory(namePrefix);
+        if (factory != null) {
+            return factory;
+        }
+        log.debug("Virtual threads unavailable, using platform threads for {}", namePrefix);
+        return new CustomizableThreadFactory(namePrefix);
+    }
+
+    private static ThreadFactory virtualFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.batchjobs.controller;
 
+import com.example.batchjobs.service.ExportWatermarks;
+import com.example.batchjobs.service.JobAdmissionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -17,53 +24,97 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/jobs")
 @RequiredArgsConstructor
 public class JobController {
-    private final JobLauncher jobLauncher;
+    private final JobAdmissionService jobAdmissionService;
+    private final JobExplorer jobExplorer;
+    private final JobRegistry jobRegistry;
     private final Job databaseToSftpJob;
     private final Job fileToSftpJob;
     private final Job sftpToFileJob;
+    private final Job sftpToDatabaseJob;
 
     @PostMapping("/database-to-sftp")
-    public ResponseEntity<String> triggerDatabaseToSftpJob(@RequestParam(required = false) String param) {
-        try {
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("time", System.currentTimeMillis())
-                    .addString("param", param)
-                    .toJobParameters();
-            jobLauncher.run(databaseToSftpJob, jobParameters);
-            return ResponseEntity.ok("Database to SFTP job triggered successfully");
-        } catch (Exception e) {
-            log.error("Error triggering database to SFTP job: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().body("Error triggering job: " + e.getMessage());
-        }
+    public ResponseEntity<String> triggerDatabaseToSftpJob(@RequestParam(required = false) String param,
+                                                           @RequestParam(defaultValue = "false") boolean full) {
+        // full=true exports the whole table instead of the rows added since the last run
+        return trigger(databaseToSftpJob, parameters(param)
+                .addString(ExportWatermarks.FULL_EXPORT_PARAMETER, String.valueOf(full)), "Database to SFTP job");
     }
 
     @PostMapping("/file-to-sftp")
     public ResponseEntity<String> triggerFileToSftpJob(@RequestParam(required = false) String param) {
+        return trigger(fileToSftpJob, param, "File to SFTP job");
+    }
+
+    @PostMapping("/sftp-to-file")
+    public ResponseEntity<String> triggerSftpToFileJob(@RequestParam(required = false) String param) {
+        return trigger(sftpToFileJob, param, "SFTP to file job");
+    }
+
+    @PostMapping("/sftp-to-database")
+    public ResponseEntity<String> triggerSftpToDatabaseJob(@RequestParam(required = false) String param) {
+        return trigger(sftpToDatabaseJob, param, "SFTP to database job");
+    }
+
+    /**
+     * Restarts a failed or stopped execution with its original parameters, so the job instance
+     * resumes from the checkpoints of that execution instead of starting over.
+     */
+    @PostMapping("/{executionId}/restart")
+    public ResponseEntity<String> restartJob(@PathVariable long executionId) {
+        JobExecution execution = jobExplorer.getJobExecution(executionId);
+        if (execution == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No job execution " + executionId);
+        }
+        BatchStatus status = execution.getStatus();
+        JobExecution last = jobExplorer.getLastJobExecution(execution.getJobInstance());
+        if ((status != BatchStatus.FAILED && status != BatchStatus.STOPPED)
+                || (last != null && !last.getId().equals(executionId))) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Job execution " + executionId + " is " + status + " or not the latest of its instance");
+        }
+        String description = "Restart of job execution " + executionId;
         try {
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("time", System.currentTimeMillis())
-                    .addString("param", param)
-                    .toJobParameters();
-            jobLauncher.run(fileToSftpJob, jobParameters);
-            return ResponseEntity.ok("File to SFTP job triggered successfully");
+            Job job = jobRegistry.getJob(execution.getJobInstance().getJobName());
+            return respond(jobAdmissionService.restart(job, execution.getJobParameters()), description);
         } catch (Exception e) {
-            log.error("Error triggering file to SFTP job: {}", e.getMessage(), e);
+            log.error("Error triggering {}: {}", description, e.getMessage(), e);
             return ResponseEntity.internalServerError().body("Error triggering job: " + e.getMessage());
         }
     }
 
-    @PostMapping("/sftp-to-file")
-    public ResponseEntity<String> triggerSftpToFileJob(@RequestParam(required = false) String param) {
+    private ResponseEntity<String> trigger(Job job, String param, String description) {
+        return trigger(job, parameters(param), description);
+    }
+
+    private JobParametersBuilder parameters(String param) {
+        return new JobParametersBuilder()
+                .addLong(JobAdmissionService.TIME_PARAMETER, System.currentTimeMillis())
+                .addString("param", param);
+    }
+
+    private ResponseEntity<String> trigger(Job job, JobParametersBuilder parameters, String description) {
         try {
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("time", System.currentTimeMillis())
-                    .addString("param", param)
-                    .toJobParameters();
-            jobLauncher.run(sftpToFileJob, jobParameters);
-            return ResponseEntity.ok("SFTP to file job triggered successfully");
+            JobParameters jobParameters = parameters.toJobParameters();
+            return respond(jobAdmissionService.submit(job, jobParameters), description);
         } catch (Exception e) {
-            log.error("Error triggering SFTP to file job: {}", e.getMessage(), e);
+            log.error("Error triggering {}: {}", description, e.getMessage(), e);
             return ResponseEntity.internalServerError().body("Error triggering job: " + e.getMessage());
         }
     }
+
+    private ResponseEntity<String> respond(JobAdmissionService.Admission admission, String description) {
+        switch (admission.getStatus()) {
+            case STARTED:
+                return ResponseEntity.ok(description + " triggered successfully");
+            case QUEUED:
+                return ResponseEntity.accepted()
+                        .body(description + " queued at position " + admission.getQueuePosition());
+            case COALESCED:
+                return ResponseEntity.accepted()
+                        .body(description + " is already queued at position " + admission.getQueuePosition());
+            default:
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(description + " rejected: job queue is full");
+        }
+    }
 }
@@ -1,35 +1,45 @@
 package com.example.batchjobs.job;
 
+import com.example.batchjobs.chunk.ChunkSizing;
+import com.example.batchjobs.codec.TransferCodecFactory;
+import com.example.batchjobs.metrics.BatchMetrics;
 import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.partition.IdRangePartitioner;
+import com.example.batchjobs.processor.AsyncItemProcessing;
 import com.example.batchjobs.processor.DatabaseItemProcessor;
+import com.example.batchjobs.reader.DataRecordJdbcReader;
 import com.example.batchjobs.repository.DataRecordRepository;
+import com.example.batchjobs.service.ExportWatermarks;
+import com.example.batchjobs.service.SftpChannelPool;
 import com.example.batchjobs.service.SftpService;
+import com.example.batchjobs.writer.SftpCsvExportWriter;
+import com.example.batchjobs.writer.StagedExportPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.data.RepositoryItemReader;
 import org.springframework.batch.item.data.builder.RepositoryItemReaderBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.io.FileWriter;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import javax.sql.DataSource;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 @Slf4j
 @Configuration
@@ -38,43 +48,177 @@ public class DatabaseToSftpJobConfig {
 
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
+    private final BatchMetrics batchMetrics;
+    private final ChunkSizing chunkSizing;
+    private final AsyncItemProcessing asyncItemProcessing;
     private final SftpService sftpService;
     private final DataRecordRepository dataRecordRepository;
-    
-    @Value("${file.local.directory.temp}")
-    private String tempDir;
+    private final TransferCodecFactory codecFactory;
+    private final DataSource dataSource;
+    private final ExportWatermarks exportWatermarks;
+    private final JobExplorer jobExplorer;
+    private final SftpChannelPool channelPool;
+
+    @Value("${jobs.codec.database-to-sftp:none}")
+    private String codecName;
+
+    @Value("${jobs.chunk.initial.database-to-sftp:500}")
+    private int chunkSize;
+
+    @Value("${jobs.database-to-sftp.partitioned:false}")
+    private boolean partitioned;
+
+    @Value("${jobs.database-to-sftp.partitions:0}")
+    private int partitions;
+
+    @Value("${jobs.database-to-sftp.reader:repository}")
+    private String readerMode;
+
+    @Value("${jobs.database-to-sftp.async-processing:false}")
+    private boolean asyncProcessing;
+
+    @Value("${jobs.database-to-sftp.page-size:1000}")
+    private int readerPageSize;
+
+    @Value("${jobs.database-to-sftp.fetch-size:1000}")
+    private int readerFetchSize;
 
     @Bean
     public Job databaseToSftpJob() {
+        if (partitioned) {
+            return new JobBuilder("databaseToSftpJob", jobRepository)
+                    .listener(exportWatermarks)
+                    .start(databaseExportManagerStep())
+                    .next(databaseExportPublishStep())
+                    .build();
+        }
         return new JobBuilder("databaseToSftpJob", jobRepository)
+                .listener(exportWatermarks)
                 .start(databaseToSftpStep())
                 .build();
     }
 
     @Bean
     public Step databaseToSftpStep() {
-        return new StepBuilder("databaseToSftpStep", jobRepository)
-                .<DataRecord, DataRecord>chunk(10, transactionManager)
-                .reader(databaseReader())
-                .processor(databaseItemProcessor)
-                .writer(csvWriter())
-                .faultTolerant()
-                .retry(Exception.class)
-                .retryLimit(3)
+        return exportStep("databaseToSftpStep", databaseReader(null, null, null, null), csvWriter());
+    }
+
+    @Bean
+    public Step databaseExportManagerStep() {
+        int gridSize = partitionCount();
+        return new StepBuilder("databaseExportManagerStep", jobRepository)
+                .partitioner("databaseExportWorkerStep", exportPartitioner(null, null))
+                .step(databaseExportWorkerStep())
+                .gridSize(gridSize)
+                .taskExecutor(exportTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public Step databaseExportWorkerStep() {
+        return exportStep("databaseExportWorkerStep", partitionedDatabaseReader(null, null, null, null), partitionedCsvWriter());
+    }
+
+    @Bean
+    @StepScope
+    public IdRangePartitioner exportPartitioner(
+            @Value("#{jobExecutionContext['export.fromId']}") Long fromId,
+            @Value("#{jobExecutionContext['export.toId']}") Long toId) {
+        return new IdRangePartitioner(dataRecordRepository, fromId, toId);
+    }
+
+    private Step exportStep(String stepName, ItemStreamReader<DataRecord> reader, SftpCsvExportWriter writer) {
+        if (asyncProcessing) {
+            // The async writer hides the export writer from listener detection, so register it explicitly
+            return batchMetrics.instrument(chunkSizing.<DataRecord, Future<DataRecord>>chunk(stepName, chunkSize)
+                            .reader(reader)
+                            .processor(asyncItemProcessing.processor(databaseItemProcessor))
+                            .writer(asyncItemProcessing.writer(writer))
+                            .listener((StepExecutionListener) writer)
+                            .faultTolerant()
+                            .retry(Exception.class)
+                            .retryLimit(3), stepName)
+                    .build();
+        }
+        return batchMetrics.instrument(chunkSizing.<DataRecord, DataRecord>chunk(stepName, chunkSize)
+                        .reader(reader)
+                        .processor(databaseItemProcessor)
+                        .writer(writer)
+                        .faultTolerant()
+                        .retry(Exception.class)
+                        .retryLimit(3), stepName)
+                .build();
+    }
+
+    @Bean
+    public Step databaseExportPublishStep() {
+        return new StepBuilder("databaseExportPublishStep", jobRepository)
+                .tasklet(new StagedExportPublisher(sftpService, jobExplorer, "databaseExportWorkerStep"), transactionManager)
                 .build();
     }
 
+    @Bean
+    public ThreadPoolTaskExecutor exportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitionCount());
+        executor.setMaxPoolSize(partitionCount());
+        executor.setThreadNamePrefix("db-export-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Every worker holds an SFTP channel for its whole step, so by default no more workers run
+     * than the channel pool can serve at once.
+     */
+    private int partitionCount() {
+        return partitions > 0 ? partitions : Math.min(Runtime.getRuntime().availableProcessors(), channelPool.getCapacity());
+    }
+
     @Bean
     @StepScope
-    public RepositoryItemReader<DataRecord> databaseReader() {
+    public ItemStreamReader<DataRecord> databaseReader(
+            @Value("#{jobExecutionContext['export.fromId']}") Long fromId,
+            @Value("#{jobExecutionContext['export.toId']}") Long toId,
+            @Value("#{jobExecutionContext['export.since']}") LocalDateTime since,
+            @Value("#{jobExecutionContext['export.afterId']}") Long afterId) {
+        return reader("databaseReader", fromId, toId, since, afterId);
+    }
+
+    @Bean
+    @StepScope
+    public ItemStreamReader<DataRecord> partitionedDatabaseReader(
+            @Value("#{stepExecutionContext['minId']}") Long minId,
+            @Value("#{stepExecutionContext['maxId']}") Long maxId,
+            @Value("#{jobExecutionContext['export.since']}") LocalDateTime since,
+            @Value("#{jobExecutionContext['export.afterId']}") Long afterId) {
+        return reader("partitionedDatabaseReader", minId, maxId, since, afterId);
+    }
+
+    /**
+     * Reads the id range, limited to rows created after {@code since} or above {@code afterId}
+     * when the export is incremental. The position is only saved when the export writer can
+     * continue its staged file after a failure; otherwise a restart exports the range again.
+     */
+    private ItemStreamReader<DataRecord> reader(String name, Long minId, Long maxId, LocalDateTime since, Long afterId) {
+        boolean saveState = codecFactory.forName(codecName).isConcatenable();
+        if (!"repository".equalsIgnoreCase(readerMode)) {
+            DataRecordJdbcReader.Mode mode = DataRecordJdbcReader.Mode.valueOf(readerMode.toUpperCase());
+            DataRecordJdbcReader reader = new DataRecordJdbcReader(dataSource, mode, readerPageSize, readerFetchSize,
+                    minId, maxId, since, afterId, name);
+            reader.setSaveState(saveState);
+            return reader;
+        }
+        long from = minId != null ? minId : Long.MIN_VALUE;
+        long to = maxId != null ? maxId : Long.MAX_VALUE;
         return new RepositoryItemReaderBuilder<DataRecord>()
-                .name("databaseReader")
+                .name(name)
+                .saveState(saveState)
                 .repository(dataRecordRepository)
-                .methodName("findAll")
+                .methodName(afterId == null ? "findByIdBetween" : "findChangedBetween")
+                .arguments(afterId == null ? List.of(from, to) : Arrays.asList(from, to, since, afterId))
                 .pageSize(100)
-                .sorts(new HashMap<String, Sort.Direction>() {{
-                    put("id", Sort.Direction.ASC);
-                }})
+                .sorts(Map.of("id", Sort.Direction.ASC))
                 .build();
     }
 
@@ -88,34 +232,15 @@ public class DatabaseToSftpJobConfig {
 
     @Bean
     @StepScope
-    public ItemWriter<DataRecord> csvWriter() {
-        return items -> {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String fileName = "data_export_" + timestamp + ".csv";
-            Path filePath = Paths.get(tempDir, fileName);
-
-            try (FileWriter fileWriter = new FileWriter(filePath.toFile());
-                 CSVPrinter csvPrinter = new CSVPrinter(fileWriter, CSVFormat.DEFAULT.builder()
-                         .setHeader("ID", "Field1", "Field2", "Field3", "Created At")
-                         .build())) {
-                
-                for (DataRecord record : items) {
-                    csvPrinter.printRecord(
-                            record.getId(),
-                            record.getField1(),
-                            record.getField2(),
-                            record.getField3(),
-                            record.getCreatedAt()
-                    );
-                }
-                csvPrinter.flush();
-                
-                // Upload to SFTP
-                sftpService.uploadFile(filePath.toString(), fileName);
-            } catch (Exception e) {
-                log.error("Error writing CSV file: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to write CSV file", e);
-            }
-        };
+    public SftpCsvExportWriter csvWriter() {
+        return new SftpCsvExportWriter(sftpService, "data_export", codecFactory.forName(codecName));
+    }
+
+    @Bean
+    @StepScope
+    public SftpCsvExportWriter partitionedCsvWriter() {
+        SftpCsvExportWriter writer = new SftpCsvExportWriter(sftpService, "data_export", codecFactory.forName(codecName));
+        writer.setPublishOnCompletion(false);
+        return writer;
     }
 }
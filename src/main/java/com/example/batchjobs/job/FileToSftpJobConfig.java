@@ -1,73 +1,301 @@
 package com.example.batchjobs.job;
 
+import com.example.batchjobs.chunk.ChunkSizing;
+import com.example.batchjobs.codec.TransferCodecFactory;
+import com.example.batchjobs.exception.JobException;
+import com.example.batchjobs.metrics.BatchMetrics;
+import com.example.batchjobs.partition.ClaimedFileListener;
+import com.example.batchjobs.partition.FileRangePartitioner;
+import com.example.batchjobs.partition.InputFilePartitioner;
+import com.example.batchjobs.processor.AsyncItemProcessing;
 import com.example.batchjobs.processor.FileItemProcessor;
+import com.example.batchjobs.reader.MappedLineRangeReader;
+import com.example.batchjobs.reader.OffsetLineReader;
+import com.example.batchjobs.service.SftpChannelPool;
 import com.example.batchjobs.service.SftpService;
+import com.example.batchjobs.service.WorkQueue;
+import com.example.batchjobs.writer.LocalPartFileWriter;
+import com.example.batchjobs.writer.RangePartAssembler;
+import com.example.batchjobs.writer.SftpLineStreamWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.repository.JobRepository;
-import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.Future;
 
 @Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class FileToSftpJobConfig {
+    private static final String CLAIM_AGAIN = "CLAIM_AGAIN";
+
     private final JobRepository jobRepository;
+    private final JobExplorer jobExplorer;
     private final PlatformTransactionManager transactionManager;
+    private final BatchMetrics batchMetrics;
+    private final ChunkSizing chunkSizing;
+    private final AsyncItemProcessing asyncItemProcessing;
     private final SftpService sftpService;
+    private final SftpChannelPool channelPool;
+    private final TransferCodecFactory codecFactory;
+    private final WorkQueue workQueue;
 
     @Value("${file.local.directory.input}")
     private String inputDir;
 
+    @Value("${file.local.directory.archive:${file.local.directory.input}/archive}")
+    private String archiveDir;
+
+    @Value("${file.local.directory.temp:${java.io.tmpdir}}")
+    private String tempDir;
+
+    @Value("${jobs.codec.file-to-sftp:none}")
+    private String codecName;
+
+    @Value("${jobs.chunk.initial.file-to-sftp:200}")
+    private int chunkSize;
+
+    @Value("${jobs.file-to-sftp.multi-file:true}")
+    private boolean multiFile;
+
+    @Value("${jobs.file-to-sftp.parallelism:0}")
+    private int parallelism;
+
+    @Value("${jobs.file-to-sftp.async-processing:false}")
+    private boolean asyncProcessing;
+
+    @Value("${jobs.file-to-sftp.split-threshold-bytes:1073741824}")
+    private long splitThreshold;
+
     @Bean
     public Job fileToSftpJob() {
+        if (multiFile && workQueue.isEnabled()) {
+            // Lease and process one batch of files per pass until the shared queue has nothing left to claim
+            return new JobBuilder("fileToSftpJob", jobRepository)
+                    .start(fileToSftpManagerStep())
+                    .next(claimDecider()).on(CLAIM_AGAIN).to(fileToSftpManagerStep())
+                    .from(claimDecider()).on(FlowExecutionStatus.FAILED.getName()).fail()
+                    .from(claimDecider()).on("*").end()
+                    .end()
+                    .build();
+        }
+        if (multiFile) {
+            return new JobBuilder("fileToSftpJob", jobRepository)
+                    .start(fileToSftpManagerStep())
+                    .next(fileToSftpRangeManagerStep())
+                    .next(fileToSftpAssembleStep())
+                    .build();
+        }
         return new JobBuilder("fileToSftpJob", jobRepository)
                 .start(fileToSftpStep())
                 .build();
     }
 
+    @Bean
+    public Step fileToSftpManagerStep() {
+        if (workQueue.isEnabled()) {
+            // Files are not split across nodes; each claimed file goes through one worker whole
+            InputFilePartitioner partitioner = new InputFilePartitioner(inputDir, ".txt");
+            partitioner.setWorkQueue(workQueue, workerCount());
+            return new StepBuilder("fileToSftpManagerStep", jobRepository)
+                    .partitioner("fileToSftpWorkerStep", partitioner)
+                    .step(fileToSftpWorkerStep())
+                    .gridSize(workerCount())
+                    .taskExecutor(fileTaskExecutor())
+                    .allowStartIfComplete(true)
+                    .build();
+        }
+        return new StepBuilder("fileToSftpManagerStep", jobRepository)
+                .partitioner("fileToSftpWorkerStep", new InputFilePartitioner(inputDir, ".txt", splitThreshold()))
+                .step(fileToSftpWorkerStep())
+                .gridSize(workerCount())
+                .taskExecutor(fileTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public JobExecutionDecider claimDecider() {
+        return (jobExecution, stepExecution) -> {
+            if (stepExecution != null && stepExecution.getStatus() != BatchStatus.COMPLETED) {
+                return FlowExecutionStatus.FAILED;
+            }
+            return workQueue.hasClaimable(InputFilePartitioner.queueName(inputDir))
+                    ? new FlowExecutionStatus(CLAIM_AGAIN) : FlowExecutionStatus.COMPLETED;
+        };
+    }
+
+    @Bean
+    public Step fileToSftpWorkerStep() {
+        if (asyncProcessing) {
+            SftpLineStreamWriter writer = partitionSftpWriter(null);
+            return batchMetrics.instrument(chunkSizing.<String, Future<String>>chunk("fileToSftpWorkerStep", chunkSize)
+                            .reader(partitionFileReader(null))
+                            .processor(asyncItemProcessing.processor(fileItemProcessor))
+                            .writer(asyncItemProcessing.writer(writer))
+                            .listener((StepExecutionListener) writer)
+                            .listener(claimedFileListener())
+                            .faultTolerant()
+                            .retry(Exception.class)
+                            .retryLimit(3), "fileToSftpWorkerStep")
+                    .build();
+        }
+        return batchMetrics.instrument(chunkSizing.<String, String>chunk("fileToSftpWorkerStep", chunkSize)
+                        .reader(partitionFileReader(null))
+                        .processor(fileItemProcessor)
+                        .writer(partitionSftpWriter(null))
+                        .listener(claimedFileListener())
+                        .faultTolerant()
+                        .retry(Exception.class)
+                        .retryLimit(3), "fileToSftpWorkerStep")
+                .build();
+    }
+
+    @Bean
+    public ClaimedFileListener claimedFileListener() {
+        return new ClaimedFileListener(workQueue, InputFilePartitioner.queueName(inputDir));
+    }
+
+    @Bean
+    public Step fileToSftpRangeManagerStep() {
+        // Files too large for one worker are split into one newline-aligned byte range per worker
+        return new StepBuilder("fileToSftpRangeManagerStep", jobRepository)
+                .partitioner("fileToSftpRangeWorkerStep", new FileRangePartitioner(inputDir, ".txt", splitThreshold()))
+                .step(fileToSftpRangeWorkerStep())
+                .gridSize(workerCount())
+                .taskExecutor(fileTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public Step fileToSftpRangeWorkerStep() {
+        return batchMetrics.instrument(chunkSizing.<String, String>chunk("fileToSftpRangeWorkerStep", chunkSize)
+                        .reader(rangeFileReader(null, null, null))
+                        .processor(fileItemProcessor)
+                        .writer(rangePartWriter(null, null))
+                        .faultTolerant()
+                        .retry(Exception.class)
+                        .retryLimit(3), "fileToSftpRangeWorkerStep")
+                .build();
+    }
+
+    @Bean
+    public Step fileToSftpAssembleStep() {
+        return new StepBuilder("fileToSftpAssembleStep", jobRepository)
+                .tasklet(new RangePartAssembler(sftpService, jobExplorer, codecFactory.forName(codecName),
+                        "fileToSftpRangeWorkerStep", Paths.get(archiveDir)), transactionManager)
+                .build();
+    }
+
+    private long splitThreshold() {
+        return splitThreshold > 0 ? splitThreshold : Long.MAX_VALUE;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor fileTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerCount());
+        executor.setMaxPoolSize(workerCount());
+        executor.setThreadNamePrefix("file-upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Each worker streams its upload over its own SFTP channel, so by default no more workers run
+     * than the channel pool can serve at once.
+     */
+    private int workerCount() {
+        return parallelism > 0 ? parallelism : Math.min(Runtime.getRuntime().availableProcessors(), channelPool.getCapacity());
+    }
+
+    @Bean
+    @StepScope
+    public OffsetLineReader partitionFileReader(
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile) {
+        return lineReader(Paths.get(inputFile), "partitionFileReader");
+    }
+
+    @Bean
+    @StepScope
+    public SftpLineStreamWriter partitionSftpWriter(
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile) {
+        return new SftpLineStreamWriter(sftpService, codecFactory.forName(codecName),
+                Paths.get(inputFile), Paths.get(archiveDir));
+    }
+
+    @Bean
+    @StepScope
+    public MappedLineRangeReader rangeFileReader(
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile,
+            @Value("#{stepExecutionContext['rangeStart']}") Long rangeStart,
+            @Value("#{stepExecutionContext['rangeEnd']}") Long rangeEnd) {
+        return new MappedLineRangeReader(Paths.get(inputFile), rangeStart, rangeEnd, "rangeFileReader");
+    }
+
+    @Bean
+    @StepScope
+    public LocalPartFileWriter rangePartWriter(
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile,
+            @Value("#{stepExecutionContext['rangeIndex']}") Integer rangeIndex) {
+        String partName = String.format("%s.range%04d", Paths.get(inputFile).getFileName(), rangeIndex);
+        return new LocalPartFileWriter(Paths.get(tempDir, partName), "rangePartWriter");
+    }
+
     @Bean
     public Step fileToSftpStep() {
-        return new StepBuilder("fileToSftpStep", jobRepository)
-                .<String, String>chunk(10, transactionManager)
-                .reader(fileReader())
-                .processor(fileProcessor())
-                .writer(sftpWriter())
-                .faultTolerant()
-                .retry(Exception.class)
-                .retryLimit(3)
+        return batchMetrics.instrument(chunkSizing.<String, String>chunk("fileToSftpStep", chunkSize)
+                        .reader(fileReader())
+                        .processor(fileProcessor())
+                        .writer(sftpWriter())
+                        .faultTolerant()
+                        .retry(Exception.class)
+                        .retryLimit(3), "fileToSftpStep")
                 .build();
     }
 
     @Bean
     @StepScope
-    public FlatFileItemReader<String> fileReader() {
-        FlatFileItemReader<String> reader = new FlatFileItemReader<>();
-        File inputDirectory = new File(inputDir);
-        File[] files = inputDirectory.listFiles((dir, name) -> name.endsWith(".txt"));
-        
-        if (files != null && files.length > 0) {
-            reader.setResource(new FileSystemResource(files[0]));
-            reader.setLineMapper(new PassThroughLineMapper());
-        }
-        
+    public OffsetLineReader fileReader() {
+        return lineReader(firstInputFile(), "fileReader");
+    }
+
+    private OffsetLineReader lineReader(Path inputFile, String name) {
+        OffsetLineReader reader = new OffsetLineReader(inputFile, name);
+        // Only a writer that can continue its remote file may let the reader skip what was already sent
+        reader.setSaveState(codecFactory.forName(codecName).isConcatenable());
         return reader;
     }
 
+    private Path firstInputFile() {
+        File[] files = new File(inputDir).listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null || files.length == 0) {
+            throw new JobException("No .txt input file in " + inputDir);
+        }
+        // Reader and writer are created separately and must agree on the file
+        Arrays.sort(files);
+        return files[0].toPath();
+    }
+
     private final FileItemProcessor fileItemProcessor;
 
     @Bean
@@ -78,20 +306,8 @@ public class FileToSftpJobConfig {
 
     @Bean
     @StepScope
-    public ItemWriter<String> sftpWriter() {
-        return items -> {
-            File inputDirectory = new File(inputDir);
-            File[] files = inputDirectory.listFiles((dir, name) -> name.endsWith(".txt"));
-            
-            if (files != null && files.length > 0) {
-                String fileName = files[0].getName();
-                sftpService.uploadFile(files[0].getAbsolutePath(), fileName);
-                
-                // Optionally move or delete the processed file
-                if (!files[0].delete()) {
-                    log.warn("Could not delete processed file: {}", fileName);
-                }
-            }
-        };
+    public SftpLineStreamWriter sftpWriter() {
+        return new SftpLineStreamWriter(sftpService, codecFactory.forName(codecName),
+                firstInputFile(), Paths.get(archiveDir));
     }
 }
@@ -0,0 +1,77 @@
+package com.example.batchjobs.job;
+
+import com.example.batchjobs.chunk.ChunkSizing;
+import com.example.batchjobs.metrics.BatchMetrics;
+import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.reader.SftpCsvRecordReader;
+import com.example.batchjobs.repository.DataRecordIdAllocator;
+import com.example.batchjobs.service.IngestionManifest;
+import com.example.batchjobs.service.SftpService;
+import com.example.batchjobs.writer.DataRecordBulkWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class SftpToDatabaseJobConfig {
+    // Kept apart from the download job's entries for the same directory
+    private static final String MANIFEST_PREFIX = "db-import:";
+
+    private final JobRepository jobRepository;
+    private final BatchMetrics batchMetrics;
+    private final ChunkSizing chunkSizing;
+    private final SftpService sftpService;
+    private final IngestionManifest ingestionManifest;
+    private final DataRecordIdAllocator idAllocator;
+    private final DataSource dataSource;
+
+    @Value("${sftp.remote.directory.input}")
+    private String remoteInputDir;
+
+    @Value("${jobs.chunk.initial.sftp-to-database:5000}")
+    private int chunkSize;
+
+    @Value("${jobs.sftp-to-database.rows-per-statement:100}")
+    private int rowsPerStatement;
+
+    @Bean
+    public Job sftpToDatabaseJob() {
+        return new JobBuilder("sftpToDatabaseJob", jobRepository)
+                .start(sftpToDatabaseStep())
+                .build();
+    }
+
+    @Bean
+    public Step sftpToDatabaseStep() {
+        return batchMetrics.instrument(chunkSizing.<DataRecord, DataRecord>chunk("sftpToDatabaseStep", chunkSize)
+                        .reader(sftpCsvReader())
+                        .writer(bulkInsertWriter())
+                        .faultTolerant()
+                        .retry(Exception.class)
+                        .retryLimit(3), "sftpToDatabaseStep")
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public SftpCsvRecordReader sftpCsvReader() {
+        return new SftpCsvRecordReader(sftpService, ingestionManifest, remoteInputDir,
+                MANIFEST_PREFIX + remoteInputDir, "sftpCsvReader");
+    }
+
+    @Bean
+    public DataRecordBulkWriter bulkInsertWriter() {
+        return new DataRecordBulkWriter(dataSource, idAllocator, rowsPerStatement);
+    }
+}
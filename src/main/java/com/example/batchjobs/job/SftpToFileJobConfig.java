@@ -1,8 +1,15 @@
 package com.example.batchjobs.job;
 
+import com.example.batchjobs.chunk.ChunkSizing;
+import com.example.batchjobs.metrics.BatchMetrics;
+import com.example.batchjobs.model.RemoteFile;
+import com.example.batchjobs.processor.FileItemProcessor;
 import com.example.batchjobs.processor.SftpItemProcessor;
+import com.example.batchjobs.reader.SftpFileListReader;
+import com.example.batchjobs.service.IngestionManifest;
+import com.example.batchjobs.service.SftpDownloadEngine;
 import com.example.batchjobs.service.SftpService;
-import com.jcraft.jsch.ChannelSftp;
+import com.example.batchjobs.service.WorkQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
@@ -10,36 +17,40 @@ import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
-import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Vector;
-
 @Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class SftpToFileJobConfig {
     private final JobRepository jobRepository;
-    private final PlatformTransactionManager transactionManager;
+    private final BatchMetrics batchMetrics;
+    private final ChunkSizing chunkSizing;
     private final SftpService sftpService;
-    private final ChannelSftp channelSftp;
+    private final SftpDownloadEngine downloadEngine;
+    private final IngestionManifest ingestionManifest;
+    private final FileItemProcessor fileItemProcessor;
+    private final WorkQueue workQueue;
 
     @Value("${sftp.remote.directory.input}")
     private String remoteInputDir;
 
+    @Value("${jobs.chunk.initial.sftp-to-file:10}")
+    private int chunkSize;
+
     @Value("${file.local.directory.output}")
     private String outputDir;
 
+    @Value("${jobs.sftp-to-file.transform:false}")
+    private boolean transform;
+
+    @Value("${jobs.coordination.claim-size:8}")
+    private int claimSize;
+
     @Bean
     public Job sftpToFileJob() {
         return new JobBuilder("sftpToFileJob", jobRepository)
@@ -49,66 +60,52 @@ public class SftpToFileJobConfig {
 
     @Bean
     public Step sftpToFileStep() {
-        return new StepBuilder("sftpToFileStep", jobRepository)
-                .<String, String>chunk(10, transactionManager)
-                .reader(sftpReader())
-                .processor(sftpProcessor())
-                .writer(fileWriter())
-                .faultTolerant()
-                .retry(Exception.class)
-                .retryLimit(3)
+        return batchMetrics.instrument(chunkSizing.<RemoteFile, RemoteFile>chunk("sftpToFileStep", chunkSize)
+                        .reader(sftpReader())
+                        .processor(sftpProcessor())
+                        .writer(fileWriter())
+                        .faultTolerant()
+                        .retry(Exception.class)
+                        .retryLimit(3), "sftpToFileStep")
                 .build();
     }
 
     @Bean
     @StepScope
-    public ItemReader<String> sftpReader() {
-        return new ItemReader<String>() {
-            private List<String> files;
-            private int currentIndex = 0;
-
-            @Override
-            public String read() {
-                try {
-                    if (files == null) {
-                        files = new ArrayList<>();
-                        @SuppressWarnings("unchecked")
-                        Vector<ChannelSftp.LsEntry> entries = (Vector<ChannelSftp.LsEntry>) channelSftp.ls(remoteInputDir);
-                        for (ChannelSftp.LsEntry entry : entries) {
-                            if (!entry.getAttrs().isDir()) {
-                                files.add(entry.getFilename());
-                            }
-                        }
-                    }
-
-                    if (currentIndex < files.size()) {
-                        return files.get(currentIndex++);
-                    }
-                } catch (Exception e) {
-                    log.error("Error reading from SFTP: {}", e.getMessage(), e);
-                    throw new RuntimeException("Failed to read from SFTP", e);
-                }
-                return null;
-            }
-        };
+    public SftpFileListReader sftpReader() {
+        SftpFileListReader reader = new SftpFileListReader(sftpService, ingestionManifest, remoteInputDir, "sftpReader");
+        if (workQueue.isEnabled()) {
+            reader.setWorkQueue(workQueue, claimSize);
+        }
+        return reader;
     }
 
     private final SftpItemProcessor sftpItemProcessor;
 
     @Bean
     @StepScope
-    public ItemProcessor<String, String> sftpProcessor() {
-        return sftpItemProcessor;
+    public ItemProcessor<RemoteFile, RemoteFile> sftpProcessor() {
+        // The processor validates the remote name and derives the local one; the remote name is kept for the transfer
+        return file -> {
+            String localName = sftpItemProcessor.process(file.getName());
+            if (localName == null) {
+                return null;
+            }
+            file.setLocalName(localName);
+            return file;
+        };
     }
 
     @Bean
     @StepScope
-    public ItemWriter<String> fileWriter() {
+    public ItemWriter<RemoteFile> fileWriter() {
         return items -> {
-            for (String fileName : items) {
-                Path localPath = Paths.get(outputDir, fileName);
-                sftpService.downloadFile(fileName, localPath.toString());
-                log.info("Downloaded file {} to {}", fileName, localPath);
+            // Transform mode cleans every line while it downloads instead of copying the raw bytes
+            downloadEngine.downloadAll(items.getItems(), outputDir, transform ? fileItemProcessor : null);
+            ingestionManifest.record(remoteInputDir, items.getItems());
+            if (workQueue.isEnabled()) {
+                workQueue.complete(SftpFileListReader.queueName(remoteInputDir),
+                        items.getItems().stream().map(RemoteFile::getName).toList());
             }
         };
     }
@@ -0,0 +1,25 @@
+package com.example.batchjobs.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class BatchMetrics {
+    private final MeterRegistry meterRegistry;
+
+    public <I, O> SimpleStepBuilder<I, O> instrument(SimpleStepBuilder<I, O> builder, String stepName) {
+        StepMetricsListener<I, O> listener = new StepMetricsListener<>(meterRegistry, stepName);
+        builder.listener((ItemReadListener<I>) listener);
+        builder.listener((ItemProcessListener<I, O>) listener);
+        builder.listener((ItemWriteListener<O>) listener);
+        builder.listener((ChunkListener) listener);
+        return builder;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.batchjobs.metrics;
+
+import com.example.batchjobs.service.RemoteMetadataCache;
+import com.example.batchjobs.service.SftpChannelPool;
+import com.example.batchjobs.service.SftpDownloadEngine;
+import com.example.batchjobs.service.TransferThrottle;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SftpMetricsBinder implements MeterBinder {
+    private final SftpChannelPool channelPool;
+    private final SftpDownloadEngine downloadEngine;
+    private final RemoteMetadataCache metadataCache;
+    private final TransferThrottle transferThrottle;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sftp.pool.channels", channelPool, SftpChannelPool::getActiveCount)
+                .description("SFTP channels currently borrowed")
+                .tag("state", "active")
+                .register(registry);
+        Gauge.builder("sftp.pool.channels", channelPool, SftpChannelPool::getIdleCount)
+                .description("SFTP channels idle in the pool")
+                .tag("state", "idle")
+                .register(registry);
+        Gauge.builder("sftp.pool.waiting", channelPool, SftpChannelPool::getWaitingCount)
+                .description("Threads waiting to borrow an SFTP channel")
+                .register(registry);
+        Gauge.builder("sftp.download.queue", downloadEngine, SftpDownloadEngine::getQueuedDownloads)
+                .description("Downloads waiting for a download thread")
+                .register(registry);
+        Gauge.builder("sftp.throttle.waiting", transferThrottle, TransferThrottle::getWaitingCount)
+                .description("Transfers waiting for bandwidth")
+                .register(registry);
+        FunctionCounter.builder("sftp.metadata.cache", metadataCache, RemoteMetadataCache::getHitCount)
+                .description("Remote listing and attribute lookups by cache outcome")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("sftp.metadata.cache", metadataCache, RemoteMetadataCache::getMissCount)
+                .description("Remote listing and attribute lookups by cache outcome")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("sftp.metadata.cache.size", metadataCache, RemoteMetadataCache::size)
+                .description("Listings and attributes currently cached")
+                .register(registry);
+    }
+}
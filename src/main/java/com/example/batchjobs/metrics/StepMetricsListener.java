@@ -0,0 +1,96 @@
+package com.example.batchjobs.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts items through one step and times each chunk from start to commit. One instance is
+ * created per step definition; partition workers of that step share it.
+ */
+public class StepMetricsListener<I, O> implements ItemReadListener<I>, ItemProcessListener<I, O>,
+        ItemWriteListener<O>, ChunkListener {
+
+    private final Counter itemsRead;
+    private final Counter itemsProcessed;
+    private final Counter itemsFiltered;
+    private final Counter itemsWritten;
+    private final Timer chunkCommitted;
+    private final Timer chunkFailed;
+    private final ThreadLocal<Long> chunkStart = new ThreadLocal<>();
+
+    public StepMetricsListener(MeterRegistry registry, String stepName) {
+        this.itemsRead = itemCounter(registry, stepName, "read");
+        this.itemsProcessed = itemCounter(registry, stepName, "processed");
+        this.itemsFiltered = itemCounter(registry, stepName, "filtered");
+        this.itemsWritten = itemCounter(registry, stepName, "written");
+        this.chunkCommitted = chunkTimer(registry, stepName, "committed");
+        this.chunkFailed = chunkTimer(registry, stepName, "failed");
+    }
+
+    @Override
+    public void afterRead(I item) {
+        itemsRead.increment();
+    }
+
+    @Override
+    public void afterProcess(I item, O result) {
+        itemsProcessed.increment();
+        if (result == null) {
+            itemsFiltered.increment();
+        }
+    }
+
+    @Override
+    public void afterWrite(Chunk<? extends O> items) {
+        itemsWritten.increment(items.size());
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        record(chunkCommitted);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        record(chunkFailed);
+    }
+
+    private void record(Timer timer) {
+        Long start = chunkStart.get();
+        if (start != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            chunkStart.remove();
+        }
+    }
+
+    private static Counter itemCounter(MeterRegistry registry, String stepName, String stage) {
+        return Counter.builder("batch.items")
+                .description("Items passing through a step")
+                .tag("step", stepName)
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    private static Timer chunkTimer(MeterRegistry registry, String stepName, String outcome) {
+        return Timer.builder("batch.chunk.duration")
+                .description("Time from chunk start to commit or rollback")
+                .tag("step", stepName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.batchjobs.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class TransferMetrics {
+    public static final String UPLOAD = "upload";
+    public static final String DOWNLOAD = "download";
+
+    private final MeterRegistry meterRegistry;
+
+    public void record(String direction, long bytes, long durationNanos) {
+        DistributionSummary.builder("sftp.transfer.bytes")
+                .description("Bytes moved per SFTP transfer")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry)
+                .record(bytes);
+        Timer.builder("sftp.transfer.duration")
+                .description("Wall time per SFTP transfer")
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        if (durationNanos > 0) {
+            DistributionSummary.builder("sftp.transfer.throughput")
+                    .description("Per-transfer throughput")
+                    .baseUnit("bytes.per.second")
+                    .tag("direction", direction)
+                    .register(meterRegistry)
+                    .record(bytes * 1e9 / durationNanos);
+        }
+    }
+}
@@ -6,10 +6,15 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "data_records")
+@Table(name = "data_records", indexes = @Index(name = "idx_data_records_created_at", columnList = "created_at"))
 public class DataRecord {
+    public static final String ID_SEQUENCE = "data_records_seq";
+    public static final int ID_ALLOCATION_SIZE = 1000;
+
+    // Sequence ids are handed out in blocks, so inserts can be batched (IDENTITY forbids it)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     private String field1;
@@ -0,0 +1,23 @@
+package com.example.batchjobs.model;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "export_watermarks")
+public class ExportWatermark {
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(name = "last_id")
+    private long lastId;
+
+    @Column(name = "last_created_at")
+    private LocalDateTime lastCreatedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
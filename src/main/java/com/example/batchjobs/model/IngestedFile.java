@@ -0,0 +1,22 @@
+package com.example.batchjobs.model;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "ingestion_manifest")
+public class IngestedFile {
+    @Id
+    @Column(name = "remote_path", length = 1024)
+    private String remotePath;
+
+    private long size;
+
+    @Column(name = "modified_time")
+    private long modifiedTime;
+
+    @Column(name = "ingested_at")
+    private LocalDateTime ingestedAt;
+}
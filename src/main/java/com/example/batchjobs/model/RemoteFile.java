@@ -0,0 +1,19 @@
+package com.example.batchjobs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemoteFile {
+    private String name;
+    private long size;
+    private long modifiedTime;
+    private String localName;
+
+    public RemoteFile(String name, long size, long modifiedTime) {
+        this(name, size, modifiedTime, name);
+    }
+}
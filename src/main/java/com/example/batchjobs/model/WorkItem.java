@@ -0,0 +1,47 @@
+package com.example.batchjobs.model;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "work_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_work_items_queue_key", columnNames = {"queue_name", "item_key"}),
+        indexes = @Index(name = "idx_work_items_claim", columnList = "queue_name, status, lease_until"))
+public class WorkItem {
+    public enum Status { PENDING, LEASED, DONE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "queue_name", nullable = false)
+    private String queueName;
+
+    @Column(name = "item_key", nullable = false, length = 1024)
+    private String itemKey;
+
+    private long size;
+
+    @Column(name = "modified_time")
+    private long modifiedTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status;
+
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    private int attempts;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public RemoteFile toRemoteFile() {
+        return new RemoteFile(itemKey, size, modifiedTime);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.batchjobs.partition;
+
+import com.example.batchjobs.service.WorkQueue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Settles the work item of a partition that {@link InputFilePartitioner} leased from the
+ * {@link WorkQueue}: done when the worker step completes, back to the queue when it does not.
+ */
+@RequiredArgsConstructor
+public class ClaimedFileListener implements StepExecutionListener {
+    private final WorkQueue workQueue;
+    private final String queue;
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        String inputFile = stepExecution.getExecutionContext().getString(InputFilePartitioner.INPUT_FILE_KEY, null);
+        if (!workQueue.isEnabled() || inputFile == null) {
+            return null;
+        }
+        List<String> key = List.of(Paths.get(inputFile).getFileName().toString());
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            workQueue.complete(queue, key);
+        } else {
+            workQueue.release(queue, key);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.batchjobs.partition;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits every matching input file of at least {@code minFileSize} bytes into {@code gridSize}
+ * byte ranges of about equal length. Each boundary is moved forward to just after the next
+ * newline, so every range starts at the beginning of a line and no line is split.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FileRangePartitioner implements Partitioner {
+    public static final String RANGE_START_KEY = "rangeStart";
+    public static final String RANGE_END_KEY = "rangeEnd";
+    public static final String RANGE_INDEX_KEY = "rangeIndex";
+    public static final String RANGE_COUNT_KEY = "rangeCount";
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final String inputDir;
+    private final String extension;
+    private final long minFileSize;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        File[] files = new File(inputDir).listFiles((dir, name) -> name.endsWith(extension));
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        if (files == null) {
+            return partitions;
+        }
+
+        Arrays.sort(files);
+        int fileIndex = 0;
+        for (File file : files) {
+            if (file.length() < minFileSize) {
+                continue;
+            }
+            List<Long> boundaries = boundaries(file, Math.max(1, gridSize));
+            for (int range = 0; range < boundaries.size() - 1; range++) {
+                ExecutionContext context = new ExecutionContext();
+                context.putString(InputFilePartitioner.INPUT_FILE_KEY, file.getAbsolutePath());
+                context.putLong(RANGE_START_KEY, boundaries.get(range));
+                context.putLong(RANGE_END_KEY, boundaries.get(range + 1));
+                context.putInt(RANGE_INDEX_KEY, range);
+                context.putInt(RANGE_COUNT_KEY, boundaries.size() - 1);
+                partitions.put("file" + fileIndex + "range" + range, context);
+            }
+            log.info("Split {} ({} bytes) into {} ranges", file, file.length(), boundaries.size() - 1);
+            fileIndex++;
+        }
+        return partitions;
+    }
+
+    private static List<Long> boundaries(File file, int ranges) {
+        long size = file.length();
+        List<Long> boundaries = new ArrayList<>(ranges + 1);
+        boundaries.add(0L);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            for (int i = 1; i < ranges; i++) {
+                long boundary = nextLineStart(channel, buffer, size * i / ranges, size);
+                // Very long lines can swallow a whole range; never emit an empty one
+                if (boundary > boundaries.get(boundaries.size() - 1) && boundary < size) {
+                    boundaries.add(boundary);
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to split " + file, e);
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    private static long nextLineStart(FileChannel channel, ByteBuffer buffer, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.batchjobs.partition;
+
+import com.example.batchjobs.repository.DataRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits the {@code data_records} id range into contiguous, non-overlapping slices. Bounds that
+ * are not given are taken from the table.
+ */
+@Slf4j
+public class IdRangePartitioner implements Partitioner {
+    public static final String MIN_ID_KEY = "minId";
+    public static final String MAX_ID_KEY = "maxId";
+    public static final String PARTITION_INDEX_KEY = "partitionIndex";
+
+    private final DataRecordRepository dataRecordRepository;
+    private final Long fromId;
+    private final Long toId;
+
+    public IdRangePartitioner(DataRecordRepository dataRecordRepository) {
+        this(dataRecordRepository, null, null);
+    }
+
+    public IdRangePartitioner(DataRecordRepository dataRecordRepository, Long fromId, Long toId) {
+        this.dataRecordRepository = dataRecordRepository;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Long minId = fromId != null ? fromId : dataRecordRepository.findMinId();
+        Long maxId = toId != null ? toId : dataRecordRepository.findMaxId();
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+
+        if (minId == null || maxId == null || minId > maxId) {
+            partitions.put("partition0", partitionContext(0, 0L, -1L));
+            return partitions;
+        }
+
+        long span = maxId - minId + 1;
+        long sliceSize = Math.max(1, (span + gridSize - 1) / gridSize);
+        int index = 0;
+        for (long start = minId; start <= maxId; start += sliceSize) {
+            long end = Math.min(maxId, start + sliceSize - 1);
+            partitions.put("partition" + index, partitionContext(index, start, end));
+            index++;
+        }
+        log.info("Split id range [{}, {}] into {} partitions", minId, maxId, partitions.size());
+        return partitions;
+    }
+
+    private ExecutionContext partitionContext(int index, long minId, long maxId) {
+        ExecutionContext context = new ExecutionContext();
+        context.putInt(PARTITION_INDEX_KEY, index);
+        context.putLong(MIN_ID_KEY, minId);
+        context.putLong(MAX_ID_KEY, maxId);
+        return context;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.batchjobs.partition;
+
+import com.example.batchjobs.model.RemoteFile;
+import com.example.batchjobs.model.WorkItem;
+import com.example.batchjobs.service.WorkQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates one partition per matching file in the input directory. The directory is listed when
+ * the partition step runs, not when the job is configured. Files of {@code maxFileSize} bytes
+ * or more are left to {@link FileRangePartitioner}.
+ * <p>
+ * With a {@link WorkQueue} the listed files are offered to the queue and partitions are only
+ * created for the batch this node leases; partitions are then named after the work item, so the
+ * partition step can run again in the same job execution for the next batch.
+ */
+@Slf4j
+public class InputFilePartitioner implements Partitioner {
+    public static final String INPUT_FILE_KEY = "inputFile";
+
+    private final String inputDir;
+    private final String extension;
+    private final long maxFileSize;
+    private WorkQueue workQueue;
+    private int claimSize;
+
+    public InputFilePartitioner(String inputDir, String extension) {
+        this(inputDir, extension, Long.MAX_VALUE);
+    }
+
+    public InputFilePartitioner(String inputDir, String extension, long maxFileSize) {
+        this.inputDir = inputDir;
+        this.extension = extension;
+        this.maxFileSize = maxFileSize;
+    }
+
+    public void setWorkQueue(WorkQueue workQueue, int claimSize) {
+        this.workQueue = workQueue;
+        this.claimSize = claimSize;
+    }
+
+    public static String queueName(String inputDir) {
+        return "file-to-sftp:" + inputDir;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        File[] files = new File(inputDir).listFiles((dir, name) -> name.endsWith(extension));
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        if (files == null) {
+            log.warn("Input directory {} is not readable", inputDir);
+            return partitions;
+        }
+
+        Arrays.sort(files);
+        if (workQueue != null) {
+            return claimPartitions(files);
+        }
+        int index = 0;
+        for (File file : files) {
+            if (file.length() >= maxFileSize) {
+                continue;
+            }
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(IdRangePartitioner.PARTITION_INDEX_KEY, index);
+            context.putString(INPUT_FILE_KEY, file.getAbsolutePath());
+            partitions.put("file" + index, context);
+            index++;
+        }
+        log.info("Found {} input files in {}", partitions.size(), inputDir);
+        return partitions;
+    }
+
+    private Map<String, ExecutionContext> claimPartitions(File[] files) {
+        List<RemoteFile> listed = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (file.length() < maxFileSize) {
+                listed.add(new RemoteFile(file.getName(), file.length(), file.lastModified()));
+            }
+        }
+        workQueue.offer(queueName(inputDir), listed);
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        int index = 0;
+        for (WorkItem item : workQueue.claim(queueName(inputDir), claimSize)) {
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(IdRangePartitioner.PARTITION_INDEX_KEY, index++);
+            context.putString(INPUT_FILE_KEY, Paths.get(inputDir, item.getItemKey()).toAbsolutePath().toString());
+            partitions.put("item" + item.getId(), context);
+        }
+        log.info("Claimed {} of {} input files in {}", partitions.size(), listed.size(), inputDir);
+        return partitions;
+    }
+}
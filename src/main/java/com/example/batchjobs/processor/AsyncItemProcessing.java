@@ -0,0 +1,35 @@
+package com.example.batchjobs.processor;
+
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps a step's processor and writer so items of a chunk are processed concurrently on the
+ * item processing executor, while the writer still receives them in read order.
+ */
+@Component
+public class AsyncItemProcessing {
+    private final TaskExecutor itemProcessingExecutor;
+
+    public AsyncItemProcessing(@Qualifier("itemProcessingExecutor") TaskExecutor itemProcessingExecutor) {
+        this.itemProcessingExecutor = itemProcessingExecutor;
+    }
+
+    public <I, O> AsyncItemProcessor<I, O> processor(ItemProcessor<I, O> delegate) {
+        AsyncItemProcessor<I, O> processor = new AsyncItemProcessor<>();
+        processor.setDelegate(delegate);
+        processor.setTaskExecutor(itemProcessingExecutor);
+        return processor;
+    }
+
+    public <O> AsyncItemWriter<O> writer(ItemWriter<O> delegate) {
+        AsyncItemWriter<O> writer = new AsyncItemWriter<>();
+        writer.setDelegate(delegate);
+        return writer;
+    }
+}
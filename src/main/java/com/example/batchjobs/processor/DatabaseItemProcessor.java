@@ -6,18 +6,20 @@ import org.springframework.batch.item.ItemProcessor;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Component
 public class DatabaseItemProcessor implements ItemProcessor<DataRecord, DataRecord> {
+    private static final long LOG_SAMPLE_RATE = 1000; // Log one in every N records at debug
+
+    private final AtomicLong processed = new AtomicLong();
 
     @Override
     public DataRecord process(DataRecord record) throws Exception {
-        log.info("Processing database record: {}", record.getId());
-        
         // Validate data
         if (record.getField1() == null || record.getField1().isEmpty()) {
-            log.warn("Skipping record {} due to empty field1", record.getId());
+            log.debug("Skipping record {} due to empty field1", record.getId());
             return null; // Skip this record
         }
 
@@ -29,7 +31,9 @@ public class DatabaseItemProcessor implements ItemProcessor<DataRecord, DataReco
         processedRecord.setField3(enrichField(record.getField3())); // Enrich field3
         processedRecord.setCreatedAt(record.getCreatedAt());
 
-        log.info("Processed database record: {}", processedRecord.getId());
+        if (log.isDebugEnabled() && processed.incrementAndGet() % LOG_SAMPLE_RATE == 0) {
+            log.debug("Processed database record: {} ({} so far)", processedRecord.getId(), processed.get());
+        }
         return processedRecord;
     }
 
@@ -4,64 +4,156 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Validates and cleans a CSV line in a single pass over its characters.
+ *
+ * <p>The rules are those of the original regex based implementation: the line must consist of
+ * exactly {@link #EXPECTED_FIELDS} non-empty, comma separated fields; each field is trimmed,
+ * stripped of everything but ASCII letters, digits, whitespace, {@code .} and {@code -},
+ * upper-cased unless it contains a digit (a field spanning a line break always counts as having
+ * none, as {@code .*\d+.*} did), trimmed again and replaced by {@code N/A} when empty.
+ */
 @Slf4j
 @Component
 public class FileItemProcessor implements ItemProcessor<String, String> {
-    private static final Pattern CSV_PATTERN = Pattern.compile("^[^,]+(,[^,]+)*$");
     private static final int EXPECTED_FIELDS = 5; // Adjust based on your requirements
+    private static final String EMPTY_FIELD = "N/A";
+    private static final long LOG_SAMPLE_RATE = 1000; // Log one in every N lines at debug
+
+    private final AtomicLong processed = new AtomicLong();
 
     @Override
     public String process(String line) throws Exception {
-        log.info("Processing line: {}", line);
-
         // Skip empty lines
-        if (line == null || line.trim().isEmpty()) {
-            log.warn("Skipping empty line");
+        if (line == null || isBlank(line)) {
+            log.debug("Skipping empty line");
             return null;
         }
 
-        // Validate CSV format
-        if (!CSV_PATTERN.matcher(line).matches()) {
-            log.warn("Invalid CSV format, skipping line: {}", line);
+        // Validate CSV format and count fields: no leading, trailing or consecutive commas
+        int length = line.length();
+        int fields = 1;
+        boolean emptyField = line.charAt(0) == ',' || line.charAt(length - 1) == ',';
+        for (int i = 0; i < length && !emptyField; i++) {
+            if (line.charAt(i) == ',') {
+                fields++;
+                emptyField = i + 1 < length && line.charAt(i + 1) == ',';
+            }
+        }
+        if (emptyField) {
+            log.debug("Invalid CSV format, skipping line: {}", line);
             return null;
         }
-
-        // Validate number of fields
-        String[] fields = line.split(",");
-        if (fields.length != EXPECTED_FIELDS) {
-            log.warn("Invalid number of fields (expected {}, got {}), skipping line: {}", 
-                    EXPECTED_FIELDS, fields.length, line);
+        if (fields != EXPECTED_FIELDS) {
+            log.debug("Invalid number of fields (expected {}, got {}), skipping line: {}",
+                    EXPECTED_FIELDS, fields, line);
             return null;
         }
 
         // Process each field
-        StringBuilder processedLine = new StringBuilder();
-        for (int i = 0; i < fields.length; i++) {
-            String processedField = processField(fields[i].trim());
-            processedLine.append(processedField);
-            if (i < fields.length - 1) {
-                processedLine.append(",");
+        char upperI = isDottedILocale() ? '\u0130' : 'I';
+        StringBuilder processedLine = new StringBuilder(length + EXPECTED_FIELDS * EMPTY_FIELD.length());
+        int start = 0;
+        for (int i = 0; i < EXPECTED_FIELDS; i++) {
+            int end = line.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            appendField(line, start, end, processedLine, upperI);
+            if (i < EXPECTED_FIELDS - 1) {
+                processedLine.append(',');
             }
+            start = end + 1;
         }
 
         String result = processedLine.toString();
-        log.info("Processed line: {}", result);
+        if (log.isDebugEnabled() && processed.incrementAndGet() % LOG_SAMPLE_RATE == 0) {
+            log.debug("Processed line: {} ({} so far)", result, processed.get());
+        }
         return result;
     }
 
-    private String processField(String field) {
-        // Remove any special characters
-        field = field.replaceAll("[^a-zA-Z0-9\\s,.-]", "");
-        
+    private static void appendField(String line, int start, int end, StringBuilder out, char upperI) {
+        // Same bounds as String.trim()
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int mark = out.length();
+        boolean hasDigit = false;
+        boolean hasLineBreak = false;
+        boolean hasLowerCase = false;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                hasLowerCase = true;
+            } else if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (c == '\n' || c == '\r') {
+                hasLineBreak = true;
+            } else if (!(c >= 'A' && c <= 'Z') && !isKeptSymbol(c)) {
+                continue;
+            }
+            // Leading whitespace would be trimmed anyway
+            if (c <= ' ' && out.length() == mark) {
+                continue;
+            }
+            out.append(c);
+        }
+
+        int fieldEnd = out.length();
+        while (fieldEnd > mark && out.charAt(fieldEnd - 1) <= ' ') {
+            fieldEnd--;
+        }
+        out.setLength(fieldEnd);
+        if (fieldEnd == mark) {
+            out.append(EMPTY_FIELD);
+            return;
+        }
+
         // Convert to uppercase if it's a string field
-        if (!field.matches(".*\\d+.*")) {
-            field = field.toUpperCase();
+        if (hasLowerCase && (!hasDigit || hasLineBreak)) {
+            for (int i = mark; i < fieldEnd; i++) {
+                char c = out.charAt(i);
+                if (c >= 'a' && c <= 'z') {
+                    out.setCharAt(i, c == 'i' ? upperI : (char) (c - ('a' - 'A')));
+                }
+            }
+        }
+    }
+
+    private static boolean isKeptSymbol(char c) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\u000B':
+            case '\f':
+            case '.':
+            case '-':
+                return true;
+            default:
+                return false;
         }
-        
-        // Trim and ensure no empty fields
-        field = field.trim();
-        return field.isEmpty() ? "N/A" : field;
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDottedILocale() {
+        // String.toUpperCase() maps 'i' to a dotted capital I in Turkish and Azerbaijani
+        String language = Locale.getDefault().getLanguage();
+        return "tr".equals(language) || "az".equals(language);
     }
 }
@@ -9,34 +9,32 @@ import java.util.zip.CRC32;
 @Slf4j
 @Component
 public class SftpItemProcessor implements ItemProcessor<String, String> {
-    private static final String ALLOWED_FILE_EXTENSIONS = ".(csv|txt|dat)$";
+    private static final String ALLOWED_FILE_EXTENSIONS = ".*\\.(csv|txt|dat)$";
     private static final long MAX_FILE_NAME_LENGTH = 100;
 
     @Override
     public String process(String fileName) throws Exception {
-        log.info("Processing SFTP file: {}", fileName);
-
         // Skip if filename is null or empty
         if (fileName == null || fileName.trim().isEmpty()) {
-            log.warn("Skipping empty filename");
+            log.debug("Skipping empty filename");
             return null;
         }
 
         // Validate file extension
         if (!fileName.toLowerCase().matches(ALLOWED_FILE_EXTENSIONS)) {
-            log.warn("Invalid file extension, skipping file: {}", fileName);
+            log.debug("Invalid file extension, skipping file: {}", fileName);
             return null;
         }
 
         // Validate filename length
         if (fileName.length() > MAX_FILE_NAME_LENGTH) {
-            log.warn("Filename too long, skipping file: {}", fileName);
+            log.debug("Filename too long, skipping file: {}", fileName);
             return null;
         }
 
         // Process filename
         String processedFileName = processFileName(fileName);
-        log.info("Processed filename: {}", processedFileName);
+        log.debug("Processed filename: {}", processedFileName);
         return processedFileName;
     }
 
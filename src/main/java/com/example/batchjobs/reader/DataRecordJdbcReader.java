@@ -0,0 +1,190 @@
+package com.example.batchjobs.reader;
+
+import com.example.batchjobs.model.DataRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads {@code data_records} in id order without offset paging and without a JPA persistence
+ * context. In {@link Mode#KEYSET} mode each page is fetched with {@code WHERE id > :lastId LIMIT n};
+ * in {@link Mode#CURSOR} mode a single forward-only result set is streamed with the given fetch
+ * size. Only the last returned id is kept in the {@link ExecutionContext} for restart. With an
+ * {@code afterId} only rows above it, or created after {@code since}, are returned, which is how
+ * incremental exports read just the rows added since the previous run.
+ */
+@Slf4j
+public class DataRecordJdbcReader implements ItemStreamReader<DataRecord> {
+    public static final String LAST_ID_KEY = "lastId";
+
+    public enum Mode { KEYSET, CURSOR }
+
+    private static final String SELECT = "SELECT id, field1, field2, field3, created_at FROM data_records "
+            + "WHERE id > ? AND id <= ?";
+
+    private final DataSource dataSource;
+    private final Mode mode;
+    private final int pageSize;
+    private final int fetchSize;
+    private final long minId;
+    private final long maxId;
+    private final LocalDateTime since;
+    private final Long afterId;
+    private final String name;
+    private final String sql;
+    private boolean saveState = true;
+
+    private final Deque<DataRecord> page = new ArrayDeque<>();
+    private long lastId;
+    private boolean exhausted;
+
+    private Connection cursorConnection;
+    private PreparedStatement cursorStatement;
+    private ResultSet cursor;
+
+    public DataRecordJdbcReader(DataSource dataSource, Mode mode, int pageSize, int fetchSize,
+                                Long minId, Long maxId, LocalDateTime since, Long afterId, String name) {
+        this.dataSource = dataSource;
+        this.mode = mode;
+        this.pageSize = pageSize;
+        this.fetchSize = fetchSize;
+        this.minId = minId != null ? minId : Long.MIN_VALUE;
+        this.maxId = maxId != null ? maxId : Long.MAX_VALUE;
+        this.since = since;
+        this.afterId = afterId;
+        this.name = name;
+        this.sql = SELECT + (afterId == null ? "" : since == null ? " AND id > ?" : " AND (created_at > ? OR id > ?)")
+                + " ORDER BY id";
+    }
+
+    /**
+     * Disable for writers that cannot continue where a failed step stopped, so a restart reads
+     * the range from the start again.
+     */
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String key = contextKey();
+        // Keyset lower bound is exclusive, so start just before the first id of the range
+        lastId = saveState && executionContext.containsKey(key) ? executionContext.getLong(key)
+                : (minId == Long.MIN_VALUE ? Long.MIN_VALUE : minId - 1);
+        exhausted = false;
+        page.clear();
+        if (mode == Mode.CURSOR) {
+            openCursor();
+        }
+    }
+
+    @Override
+    public DataRecord read() throws Exception {
+        DataRecord record = mode == Mode.CURSOR ? readFromCursor() : readFromPage();
+        if (record != null) {
+            lastId = record.getId();
+        }
+        return record;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (saveState) {
+            executionContext.putLong(contextKey(), lastId);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        JdbcUtils.closeResultSet(cursor);
+        JdbcUtils.closeStatement(cursorStatement);
+        JdbcUtils.closeConnection(cursorConnection);
+        cursor = null;
+        cursorStatement = null;
+        cursorConnection = null;
+        page.clear();
+    }
+
+    private DataRecord readFromPage() throws SQLException {
+        if (page.isEmpty() && !exhausted) {
+            fetchPage();
+        }
+        return page.pollFirst();
+    }
+
+    private void fetchPage() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql + " LIMIT ?")) {
+            int limitIndex = bind(statement);
+            statement.setInt(limitIndex, pageSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    page.addLast(mapRow(rs));
+                }
+            }
+        }
+        exhausted = page.size() < pageSize;
+    }
+
+    private void openCursor() {
+        try {
+            cursorConnection = dataSource.getConnection();
+            cursorStatement = cursorConnection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            cursorStatement.setFetchSize(fetchSize);
+            bind(cursorStatement);
+            cursor = cursorStatement.executeQuery();
+        } catch (SQLException e) {
+            close();
+            throw new ItemStreamException("Failed to open data_records cursor", e);
+        }
+    }
+
+    /**
+     * Binds the range and filter parameters and returns the index of the next free parameter.
+     */
+    private int bind(PreparedStatement statement) throws SQLException {
+        int index = 1;
+        statement.setLong(index++, lastId);
+        statement.setLong(index++, maxId);
+        if (afterId != null) {
+            if (since != null) {
+                statement.setObject(index++, since);
+            }
+            statement.setLong(index++, afterId);
+        }
+        return index;
+    }
+
+    private DataRecord readFromCursor() throws SQLException {
+        if (cursor == null || !cursor.next()) {
+            return null;
+        }
+        return mapRow(cursor);
+    }
+
+    private DataRecord mapRow(ResultSet rs) throws SQLException {
+        DataRecord record = new DataRecord();
+        record.setId(rs.getLong(1));
+        record.setField1(rs.getString(2));
+        record.setField2(rs.getString(3));
+        record.setField3(rs.getString(4));
+        record.setCreatedAt(rs.getObject(5, LocalDateTime.class));
+        return record;
+    }
+
+    private String contextKey() {
+        return name + "." + LAST_ID_KEY;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.batchjobs.reader;
+
+import com.example.batchjobs.model.RemoteFile;
+import com.example.batchjobs.model.WorkItem;
+import com.example.batchjobs.service.IngestionManifest;
+import com.example.batchjobs.service.SftpService;
+import com.example.batchjobs.service.WorkQueue;
+import com.jcraft.jsch.ChannelSftp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lists the new or changed files of a remote directory in name order. The name of the last file
+ * handed out in a committed chunk is saved, and a restarted step continues with the file after it.
+ * <p>
+ * With a {@link WorkQueue} the files are offered to the queue instead and handed out in batches
+ * leased from it, so several nodes can share the directory; leases still held when the reader
+ * is closed go back to the queue.
+ */
+@Slf4j
+public class SftpFileListReader implements ItemStreamReader<RemoteFile> {
+    public static final String LAST_FILE_KEY = "lastFile";
+
+    private final SftpService sftpService;
+    private final IngestionManifest ingestionManifest;
+    private final String remoteDir;
+    private final String name;
+    private WorkQueue workQueue;
+    private int claimSize;
+
+    private List<RemoteFile> files;
+    private int currentIndex;
+    private String lastFile;
+
+    public SftpFileListReader(SftpService sftpService, IngestionManifest ingestionManifest, String remoteDir, String name) {
+        this.sftpService = sftpService;
+        this.ingestionManifest = ingestionManifest;
+        this.remoteDir = remoteDir;
+        this.name = name;
+    }
+
+    public void setWorkQueue(WorkQueue workQueue, int claimSize) {
+        this.workQueue = workQueue;
+        this.claimSize = claimSize;
+    }
+
+    public static String queueName(String remoteDir) {
+        return "sftp-to-file:" + remoteDir;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        lastFile = workQueue == null ? executionContext.getString(key(), null) : null;
+        files = null;
+        currentIndex = 0;
+    }
+
+    @Override
+    public RemoteFile read() {
+        try {
+            if (files == null) {
+                files = list();
+            }
+            if (workQueue != null && currentIndex == files.size()) {
+                files = claim();
+                currentIndex = 0;
+            }
+            if (currentIndex < files.size()) {
+                RemoteFile file = files.get(currentIndex++);
+                lastFile = file.getName();
+                return file;
+            }
+        } catch (Exception e) {
+            log.error("Error reading from SFTP: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read from SFTP", e);
+        }
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (lastFile != null && workQueue == null) {
+            executionContext.putString(key(), lastFile);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (workQueue != null) {
+            workQueue.releaseAll(queueName(remoteDir));
+        }
+    }
+
+    private List<RemoteFile> claim() {
+        List<RemoteFile> claimed = new ArrayList<>();
+        for (WorkItem item : workQueue.claim(queueName(remoteDir), claimSize)) {
+            claimed.add(item.toRemoteFile());
+        }
+        return claimed;
+    }
+
+    private List<RemoteFile> list() {
+        List<RemoteFile> pending = new ArrayList<>();
+        int listed = 0;
+        for (ChannelSftp.LsEntry entry : sftpService.listFiles(remoteDir)) {
+            RemoteFile file = new RemoteFile(entry.getFilename(), entry.getAttrs().getSize(),
+                    entry.getAttrs().getMTime() * 1000L);
+            listed++;
+            if ((lastFile == null || file.getName().compareTo(lastFile) > 0)
+                    && ingestionManifest.isNewOrChanged(remoteDir, file)) {
+                pending.add(file);
+            }
+        }
+        pending.sort(Comparator.comparing(RemoteFile::getName));
+        log.info("{} of {} remote files are new or changed{}", pending.size(), listed,
+                lastFile == null ? "" : " after " + lastFile);
+        if (workQueue != null) {
+            workQueue.offer(queueName(remoteDir), pending);
+            return claim();
+        }
+        return pending;
+    }
+
+    private String key() {
+        return name + "." + LAST_FILE_KEY;
+    }
+}
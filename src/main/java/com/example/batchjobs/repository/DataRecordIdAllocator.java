@@ -0,0 +1,37 @@
+package com.example.batchjobs.repository;
+
+import com.example.batchjobs.model.DataRecord;
+import org.springframework.batch.item.database.support.DefaultDataFieldMaxValueIncrementerFactory;
+import org.springframework.batch.support.DatabaseType;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Hands out {@link DataRecord} ids for plain JDBC inserts. Each sequence call reserves a block of
+ * {@link DataRecord#ID_ALLOCATION_SIZE} ids starting at the returned value, which is the
+ * {@code pooled-lo} scheme Hibernate is configured with, so both can share the sequence.
+ */
+@Component
+public class DataRecordIdAllocator {
+    private final DataFieldMaxValueIncrementer sequence;
+
+    private long next;
+    private long limit;
+
+    public DataRecordIdAllocator(DataSource dataSource) throws MetaDataAccessException {
+        String databaseType = DatabaseType.fromMetaData(dataSource).name();
+        this.sequence = new DefaultDataFieldMaxValueIncrementerFactory(dataSource)
+                .getIncrementer(databaseType, DataRecord.ID_SEQUENCE);
+    }
+
+    public synchronized long next() {
+        if (next == limit) {
+            next = sequence.nextLongValue();
+            limit = next + DataRecord.ID_ALLOCATION_SIZE;
+        }
+        return next++;
+    }
+}
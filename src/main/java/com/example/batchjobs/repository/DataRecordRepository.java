@@ -1,9 +1,45 @@
 package com.example.batchjobs.repository;
 
 import com.example.batchjobs.model.DataRecord;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface DataRecordRepository extends JpaRepository<DataRecord, Long> {
+
+    @Query("select min(d.id) from DataRecord d")
+    Long findMinId();
+
+    @Query("select max(d.id) from DataRecord d")
+    Long findMaxId();
+
+    @Query("select max(d.createdAt) from DataRecord d")
+    LocalDateTime findMaxCreatedAt();
+
+    @Query("select min(d.id) from DataRecord d where d.createdAt > :since")
+    Long findMinIdCreatedAfter(@Param("since") LocalDateTime since);
+
+    Page<DataRecord> findByIdBetween(Long minId, Long maxId, Pageable pageable);
+
+    long countByIdBetween(Long minId, Long maxId);
+
+    /**
+     * Rows of the id range created after {@code since} or with an id above {@code afterId}.
+     */
+    @Query("select d from DataRecord d where d.id between :minId and :maxId "
+            + "and (d.createdAt > :since or d.id > :afterId)")
+    Page<DataRecord> findChangedBetween(@Param("minId") Long minId, @Param("maxId") Long maxId,
+                                        @Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    @Query("select count(d) from DataRecord d where d.id between :minId and :maxId "
+            + "and (d.createdAt > :since or d.id > :afterId)")
+    long countChangedBetween(@Param("minId") Long minId, @Param("maxId") Long maxId,
+                             @Param("since") LocalDateTime since, @Param("afterId") Long afterId);
 }
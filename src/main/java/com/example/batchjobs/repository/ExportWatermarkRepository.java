@@ -0,0 +1,9 @@
+package com.example.batchjobs.repository;
+
+import com.example.batchjobs.model.ExportWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExportWatermarkRepository extends JpaRepository<ExportWatermark, String> {
+}
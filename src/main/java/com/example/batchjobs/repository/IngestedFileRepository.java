@@ -0,0 +1,9 @@
+package com.example.batchjobs.repository;
+
+import com.example.batchjobs.model.IngestedFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestedFileRepository extends JpaRepository<IngestedFile, String> {
+}
@@ -0,0 +1,145 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.model.ExportWatermark;
+import com.example.batchjobs.repository.DataRecordRepository;
+import com.example.batchjobs.repository.ExportWatermarkRepository;
+import com.example.batchjobs.writer.SftpCsvExportWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * High-water marks of {@code data_records} exports, one per job. Before a run the export window is
+ * fixed in the job execution context: ids up to the current maximum, and for an incremental run
+ * only rows created after the mark or with an id above it. A restarted execution keeps the window
+ * of the failed one. After a successful run, full or incremental, the mark moves to the end of
+ * the window, but only when the completed export files together read every row of the window;
+ * otherwise the rows stay above the mark and the next run exports them again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportWatermarks implements JobExecutionListener {
+    public static final String FULL_EXPORT_PARAMETER = "fullExport";
+    public static final String FROM_ID_KEY = "export.fromId";
+    public static final String TO_ID_KEY = "export.toId";
+    public static final String AFTER_ID_KEY = "export.afterId";
+    public static final String SINCE_KEY = "export.since";
+
+    private static final String TO_CREATED_AT_KEY = "export.toCreatedAt";
+
+    private final ExportWatermarkRepository watermarkRepository;
+    private final DataRecordRepository dataRecordRepository;
+    private final JobExplorer jobExplorer;
+
+    @Value("${jobs.database-to-sftp.incremental:true}")
+    private boolean incremental;
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (context.containsKey(TO_ID_KEY)) {
+            return;
+        }
+        String jobName = jobExecution.getJobInstance().getJobName();
+        Long maxId = dataRecordRepository.findMaxId();
+        long toId = maxId != null ? maxId : 0L;
+        context.putLong(TO_ID_KEY, toId);
+        LocalDateTime toCreatedAt = dataRecordRepository.findMaxCreatedAt();
+        if (toCreatedAt != null) {
+            context.put(TO_CREATED_AT_KEY, toCreatedAt);
+        }
+
+        boolean full = !incremental
+                || Boolean.parseBoolean(jobExecution.getJobParameters().getString(FULL_EXPORT_PARAMETER));
+        Optional<ExportWatermark> watermark = full ? Optional.empty() : watermarkRepository.findById(jobName);
+        if (watermark.isEmpty()) {
+            log.info("{} exports all records up to id {}", jobName, toId);
+            return;
+        }
+
+        long afterId = watermark.get().getLastId();
+        LocalDateTime since = watermark.get().getLastCreatedAt();
+        long fromId = afterId + 1;
+        if (since != null) {
+            // Rows committed late from an older id block sit below the mark but were created after it
+            Long firstLate = dataRecordRepository.findMinIdCreatedAfter(since);
+            if (firstLate != null) {
+                fromId = Math.min(fromId, firstLate);
+                context.put(SINCE_KEY, since);
+            }
+        }
+        context.putLong(FROM_ID_KEY, fromId);
+        context.putLong(AFTER_ID_KEY, afterId);
+        log.info("{} exports records after id {} or created after {}, ids {} to {}", jobName, afterId, since, fromId, toId);
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED || !context.containsKey(TO_ID_KEY)) {
+            return;
+        }
+        String jobName = jobExecution.getJobInstance().getJobName();
+        long expected = windowCount(context);
+        long exported = exportedCount(jobExecution);
+        if (exported < expected) {
+            log.warn("{} exported {} of {} records in its window, watermark not moved", jobName, exported, expected);
+            return;
+        }
+        ExportWatermark watermark = watermarkRepository.findById(jobName).orElseGet(() -> {
+            ExportWatermark created = new ExportWatermark();
+            created.setJobName(jobName);
+            return created;
+        });
+        watermark.setLastId(Math.max(watermark.getLastId(), context.getLong(TO_ID_KEY)));
+        LocalDateTime toCreatedAt = (LocalDateTime) context.get(TO_CREATED_AT_KEY);
+        if (toCreatedAt != null && (watermark.getLastCreatedAt() == null || toCreatedAt.isAfter(watermark.getLastCreatedAt()))) {
+            watermark.setLastCreatedAt(toCreatedAt);
+        }
+        watermark.setUpdatedAt(LocalDateTime.now());
+        watermarkRepository.save(watermark);
+        log.info("{} watermark moved to id {}, created at {}", jobName, watermark.getLastId(), watermark.getLastCreatedAt());
+    }
+
+    private long windowCount(ExecutionContext context) {
+        long fromId = context.containsKey(FROM_ID_KEY) ? context.getLong(FROM_ID_KEY) : Long.MIN_VALUE;
+        long toId = context.getLong(TO_ID_KEY);
+        if (!context.containsKey(AFTER_ID_KEY)) {
+            return dataRecordRepository.countByIdBetween(fromId, toId);
+        }
+        return dataRecordRepository.countChangedBetween(fromId, toId, (LocalDateTime) context.get(SINCE_KEY),
+                context.getLong(AFTER_ID_KEY));
+    }
+
+    /**
+     * Records read into the completed export files of the job instance. Partitions finished by an
+     * earlier execution are included; newest execution first, so each step is counted once.
+     */
+    private long exportedCount(JobExecution current) {
+        Set<String> seen = new HashSet<>();
+        long count = 0;
+        for (JobExecution jobExecution : jobExplorer.getJobExecutions(current.getJobInstance())) {
+            for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                if (stepExecution.getStatus() == BatchStatus.COMPLETED
+                        && stepExecution.getExecutionContext().containsKey(SftpCsvExportWriter.READ_COUNT_KEY)
+                        && seen.add(stepExecution.getStepName())) {
+                    count += stepExecution.getExecutionContext().getLong(SftpCsvExportWriter.READ_COUNT_KEY);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.model.IngestedFile;
+import com.example.batchjobs.model.RemoteFile;
+import com.example.batchjobs.repository.IngestedFileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which remote files have already been ingested, keyed by remote path, size and mtime.
+ * The table is loaded once into an in-memory index so that checking a listing is O(1) per entry.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestionManifest {
+    private final IngestedFileRepository ingestedFileRepository;
+
+    private volatile Map<String, IngestedFile> index;
+
+    public boolean isNewOrChanged(String remoteDirectory, RemoteFile file) {
+        IngestedFile known = index().get(SftpService.remotePath(remoteDirectory, file.getName()));
+        return known == null
+                || known.getSize() != file.getSize()
+                || known.getModifiedTime() != file.getModifiedTime();
+    }
+
+    /**
+     * Saves the entries in the current (chunk) transaction; the in-memory index is only
+     * updated once that transaction commits.
+     */
+    public void record(String remoteDirectory, List<? extends RemoteFile> files) {
+        LocalDateTime now = LocalDateTime.now();
+        List<IngestedFile> entries = new ArrayList<>(files.size());
+        for (RemoteFile file : files) {
+            IngestedFile entry = new IngestedFile();
+            entry.setRemotePath(SftpService.remotePath(remoteDirectory, file.getName()));
+            entry.setSize(file.getSize());
+            entry.setModifiedTime(file.getModifiedTime());
+            entry.setIngestedAt(now);
+            entries.add(entry);
+        }
+        ingestedFileRepository.saveAll(entries);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.forEach(entry -> index().put(entry.getRemotePath(), entry));
+                }
+            });
+        } else {
+            entries.forEach(entry -> index().put(entry.getRemotePath(), entry));
+        }
+    }
+
+    private Map<String, IngestedFile> index() {
+        Map<String, IngestedFile> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new ConcurrentHashMap<>();
+                    for (IngestedFile entry : ingestedFileRepository.findAll()) {
+                        current.put(entry.getRemotePath(), entry);
+                    }
+                    log.info("Loaded {} entries from the ingestion manifest", current.size());
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.config.VirtualThreads;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Front door for every job launch. Runs at most {@code max-concurrent} jobs overall and
+ * {@code max-concurrent-per-job} instances of any one job, parks further triggers in a bounded
+ * priority/FIFO queue (see {@link JobPriorities}) and folds repeated triggers of an already queued job into the queued one.
+ * Only triggers that differ from the queued run in nothing but their {@code time} are folded; any
+ * other parameter, such as a full export, gets a run of its own.
+ */
+@Slf4j
+@Service
+public class JobAdmissionService implements DisposableBean {
+
+    public enum Status { STARTED, QUEUED, COALESCED, REJECTED }
+
+    // Added to every trigger to make it a new job instance
+    public static final String TIME_PARAMETER = "time";
+
+    @Getter
+    @AllArgsConstructor
+    public static class Admission {
+        private final String jobName;
+        private final Status status;
+        private final int queuePosition;
+    }
+
+    private static final Comparator<Pending> ORDER = Comparator
+            .comparingInt((Pending pending) -> -pending.priority)
+            .thenComparingLong(pending -> pending.sequence);
+
+    private final JobLauncher jobLauncher;
+    private final JobPriorities jobPriorities;
+    private final int maxConcurrent;
+    private final int maxConcurrentPerJob;
+    private final int queueCapacity;
+    private final ExecutorService executor = Executors.newCachedThreadPool(VirtualThreads.factory("job-"));
+
+    private final List<Pending> queue = new ArrayList<>();
+    private final Map<String, Integer> running = new HashMap<>();
+    private int runningTotal;
+    private long sequence;
+
+    public JobAdmissionService(JobLauncher jobLauncher, JobPriorities jobPriorities,
+                               @Value("${jobs.launcher.max-concurrent:2}") int maxConcurrent,
+                               @Value("${jobs.launcher.max-concurrent-per-job:1}") int maxConcurrentPerJob,
+                               @Value("${jobs.launcher.queue-capacity:16}") int queueCapacity) {
+        this.jobLauncher = jobLauncher;
+        this.jobPriorities = jobPriorities;
+        this.maxConcurrent = maxConcurrent;
+        this.maxConcurrentPerJob = maxConcurrentPerJob;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Admission submit(Job job, JobParameters parameters) {
+        return submit(job, parameters, jobPriorities.of(job.getName()));
+    }
+
+    public synchronized Admission submit(Job job, JobParameters parameters, int priority) {
+        String jobName = job.getName();
+        for (Pending pending : queue) {
+            if (pending.job.getName().equals(jobName) && sameRequest(pending.parameters, parameters)) {
+                log.info("Job {} is already queued, coalescing trigger", jobName);
+                return new Admission(jobName, Status.COALESCED, positionOf(pending));
+            }
+        }
+        return admit(job, parameters, priority);
+    }
+
+    /**
+     * Launches the job again with the parameters of a failed execution, which makes Spring Batch
+     * restart that job instance from its last checkpoint. Never folded into a queued run.
+     */
+    public synchronized Admission restart(Job job, JobParameters parameters) {
+        return admit(job, parameters, jobPriorities.of(job.getName()));
+    }
+
+    private Admission admit(Job job, JobParameters parameters, int priority) {
+        String jobName = job.getName();
+        Pending pending = new Pending(job, parameters, priority, sequence++);
+        if (queue.isEmpty() && canStart(jobName)) {
+            start(pending);
+            return new Admission(jobName, Status.STARTED, 0);
+        }
+        if (queue.size() >= queueCapacity) {
+            log.warn("Job queue is full ({}), rejecting trigger for {}", queueCapacity, jobName);
+            return new Admission(jobName, Status.REJECTED, 0);
+        }
+        queue.add(pending);
+        // Jobs ahead in line may be held back only by their own per-job cap
+        dispatch();
+        if (!queue.contains(pending)) {
+            return new Admission(jobName, Status.STARTED, 0);
+        }
+        int position = positionOf(pending);
+        log.info("Job {} queued at position {}", jobName, position);
+        return new Admission(jobName, Status.QUEUED, position);
+    }
+
+    public synchronized boolean isActive(String jobName) {
+        return running.getOrDefault(jobName, 0) > 0
+                || queue.stream().anyMatch(pending -> pending.job.getName().equals(jobName));
+    }
+
+    public synchronized int getRunningCount() {
+        return runningTotal;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    private static boolean sameRequest(JobParameters queued, JobParameters trigger) {
+        Map<String, JobParameter<?>> queuedParameters = new HashMap<>(queued.getParameters());
+        Map<String, JobParameter<?>> triggerParameters = new HashMap<>(trigger.getParameters());
+        queuedParameters.remove(TIME_PARAMETER);
+        triggerParameters.remove(TIME_PARAMETER);
+        return queuedParameters.equals(triggerParameters);
+    }
+
+    private boolean canStart(String jobName) {
+        return runningTotal < maxConcurrent && running.getOrDefault(jobName, 0) < maxConcurrentPerJob;
+    }
+
+    private int positionOf(Pending target) {
+        int position = 1;
+        for (Pending pending : queue) {
+            if (pending != target && ORDER.compare(pending, target) < 0) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private void dispatch() {
+        queue.sort(ORDER);
+        for (int i = 0; i < queue.size() && runningTotal < maxConcurrent; ) {
+            Pending pending = queue.get(i);
+            if (canStart(pending.job.getName())) {
+                queue.remove(i);
+                start(pending);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void start(Pending pending) {
+        String jobName = pending.job.getName();
+        running.merge(jobName, 1, Integer::sum);
+        runningTotal++;
+        executor.execute(() -> {
+            try {
+                jobLauncher.run(pending.job, pending.parameters);
+            } catch (Exception e) {
+                log.error("Error running job {}: {}", jobName, e.getMessage(), e);
+            } finally {
+                finished(jobName);
+            }
+        });
+    }
+
+    private synchronized void finished(String jobName) {
+        running.merge(jobName, -1, Integer::sum);
+        runningTotal--;
+        dispatch();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class Pending {
+        private final Job job;
+        private final JobParameters parameters;
+        private final int priority;
+        private final long sequence;
+
+        private Pending(Job job, JobParameters parameters, int priority, long sequence) {
+            this.job = job;
+            this.parameters = parameters;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.batchjobs.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Priorities of the jobs, {@code jobs.priority.<jobName>}, higher first; unlisted jobs get 0. They
+ * order the launch queue and the waiters for SFTP bandwidth.
+ */
+@Component
+@RequiredArgsConstructor
+public class JobPriorities {
+    private final Environment environment;
+
+    public int of(String jobName) {
+        return environment.getProperty("jobs.priority." + jobName, Integer.class, 0);
+    }
+
+    /**
+     * Priority of the job whose step runs on the calling thread, or 0 outside a step.
+     */
+    public int current() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? of(context.getJobName()) : 0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.batchjobs.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers remote directory listings and file attributes for {@code ttl-ms}, keeping at most
+ * {@code max-entries} of them in LRU order. Whatever changes the remote side through
+ * {@link SftpService} invalidates the affected path and the listing of its directory.
+ * A TTL of 0 disables caching.
+ */
+@Component
+public class RemoteMetadataCache {
+    private static final String LISTING = "ls:";
+    private static final String ATTRIBUTES = "stat:";
+
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    private final long ttlNanos;
+    private final Map<String, CachedValue> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RemoteMetadataCache(@Value("${sftp.metadata-cache.ttl-ms:30000}") long ttlMillis,
+                               @Value("${sftp.metadata-cache.max-entries:1000}") int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public List<ChannelSftp.LsEntry> listing(String directory, Loader<List<ChannelSftp.LsEntry>> loader) throws Exception {
+        return get(LISTING + trimSlash(directory), () -> Collections.unmodifiableList(loader.load()));
+    }
+
+    public Optional<SftpATTRS> attributes(String path, Loader<Optional<SftpATTRS>> loader) throws Exception {
+        // A fresh listing of the directory already answers the lookup
+        List<ChannelSftp.LsEntry> listing = peek(LISTING + parent(path));
+        if (listing != null) {
+            hits.incrementAndGet();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            return listing.stream()
+                    .filter(entry -> entry.getFilename().equals(fileName))
+                    .map(ChannelSftp.LsEntry::getAttrs)
+                    .findFirst();
+        }
+        return get(ATTRIBUTES + path, loader);
+    }
+
+    public synchronized void invalidate(String path) {
+        entries.remove(ATTRIBUTES + path);
+        entries.remove(LISTING + parent(path));
+    }
+
+    public synchronized void invalidateAttributes(String path) {
+        entries.remove(ATTRIBUTES + path);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private <T> T get(String key, Loader<T> loader) throws Exception {
+        T cached = peek(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        // Loaded outside the lock; two concurrent misses both go to the server, which is harmless
+        T value = loader.load();
+        if (ttlNanos > 0) {
+            synchronized (this) {
+                entries.put(key, new CachedValue(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> T peek(String key) {
+        CachedValue cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.expiresAt >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return (T) cached.value;
+    }
+
+    private static String parent(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : slash == 0 ? "/" : path.substring(0, slash);
+    }
+
+    private static String trimSlash(String directory) {
+        return directory.length() > 1 && directory.endsWith("/")
+                ? directory.substring(0, directory.length() - 1) : directory;
+    }
+
+    private static final class CachedValue {
+        private final Object value;
+        private final long expiresAt;
+
+        private CachedValue(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.exception.JobException;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of SFTP channels multiplexed over a small number of SSH sessions.
+ * Nothing is connected until the first borrow (or {@link #warmUp}), so the application starts
+ * even while the server is unreachable. Channels are validated on borrow, evicted when idle and
+ * re-created on a fresh session if the underlying connection has dropped. A channel idle for longer
+ * than {@code validateAfterIdleMillis} is checked with a round trip to the server, since a
+ * half-open connection (server idle timeout, dropped NAT mapping) still looks connected locally.
+ */
+@Slf4j
+public class SftpChannelPool implements DisposableBean {
+
+    @FunctionalInterface
+    public interface SftpCallback<T> {
+        T doInSftp(ChannelSftp channel) throws Exception;
+    }
+
+    private final JSch jsch;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int maxSessions;
+    private final int channelsPerSession;
+    private final long borrowTimeoutMillis;
+    private final long maxIdleMillis;
+    private final long validateAfterIdleMillis;
+
+    private final Semaphore permits;
+    private final BlockingDeque<PooledChannel> idleChannels = new LinkedBlockingDeque<>();
+    private final List<PooledSession> sessions = new ArrayList<>();
+
+    public SftpChannelPool(JSch jsch, String host, int port, String username, String password,
+                           int maxSessions, int channelsPerSession,
+                           long borrowTimeoutMillis, long maxIdleMillis, long validateAfterIdleMillis) {
+        this.jsch = jsch;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.maxSessions = maxSessions;
+        this.channelsPerSession = channelsPerSession;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+        this.permits = new Semaphore(maxSessions * channelsPerSession, true);
+    }
+
+    public <T> T execute(SftpCallback<T> callback) throws Exception {
+        PooledChannel pooled = borrow();
+        try {
+            return callback.doInSftp(pooled.channel);
+        } finally {
+            release(pooled);
+        }
+    }
+
+    public Lease lease() throws Exception {
+        return new Lease(borrow());
+    }
+
+    /**
+     * Opens up to {@code channels} channels ahead of the first transfer and parks them idle.
+     * Failures are only logged; the next borrow simply tries again.
+     */
+    public int warmUp(int channels) {
+        List<PooledChannel> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(channels, maxSessions * channelsPerSession); i++) {
+                opened.add(borrow());
+            }
+        } catch (Exception e) {
+            log.warn("SFTP warm-up to {}:{} failed after {} channels: {}", host, port, opened.size(), e.getMessage());
+        } finally {
+            opened.forEach(this::release);
+        }
+        return opened.size();
+    }
+
+    /**
+     * Channels that can be borrowed at the same time.
+     */
+    public int getCapacity() {
+        return maxSessions * channelsPerSession;
+    }
+
+    public int getActiveCount() {
+        return getCapacity() - permits.availablePermits() - idleChannels.size();
+    }
+
+    public int getIdleCount() {
+        return idleChannels.size();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    private PooledChannel borrow() throws Exception {
+        if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new JobException("Timed out after " + borrowTimeoutMillis + " ms waiting for an SFTP channel");
+        }
+        try {
+            PooledChannel pooled;
+            while ((pooled = idleChannels.pollFirst()) != null) {
+                if (pooled.isValid() && (System.currentTimeMillis() - pooled.lastUsed < validateAfterIdleMillis
+                        || respond(pooled))) {
+                    return pooled;
+                }
+                log.debug("Discarding stale SFTP channel on borrow");
+                destroy(pooled);
+            }
+            return create();
+        } catch (Exception e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean respond(PooledChannel pooled) {
+        try {
+            // realpath goes to the server, unlike pwd which JSch answers from its cached directory
+            pooled.channel.realpath(".");
+            return true;
+        } catch (Exception e) {
+            log.warn("Idle SFTP channel to {} did not respond, reconnecting: {}", host, e.getMessage());
+            // The connection under the channel is gone, so its sibling channels are useless as well
+            pooled.owner.session.disconnect();
+            return false;
+        }
+    }
+
+    private void release(PooledChannel pooled) {
+        try {
+            if (pooled.isValid()) {
+                pooled.lastUsed = System.currentTimeMillis();
+                // LIFO keeps the hot channels busy and lets the cold ones age out
+                idleChannels.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private synchronized PooledChannel create() throws Exception {
+        PooledSession target = null;
+        Iterator<PooledSession> it = sessions.iterator();
+        while (it.hasNext()) {
+            PooledSession candidate = it.next();
+            if (!candidate.session.isConnected()) {
+                log.warn("SFTP session to {} dropped, reconnecting", host);
+                candidate.session.disconnect();
+                it.remove();
+                continue;
+            }
+            if (target == null && candidate.openChannels < channelsPerSession) {
+                target = candidate;
+            }
+        }
+
+        if (target == null) {
+            if (sessions.size() >= maxSessions) {
+                throw new JobException("SFTP session limit of " + maxSessions + " reached");
+            }
+            target = new PooledSession(openSession());
+            sessions.add(target);
+        }
+
+        ChannelSftp channel = (ChannelSftp) target.session.openChannel("sftp");
+        channel.connect();
+        target.openChannels++;
+        return new PooledChannel(target, channel);
+    }
+
+    private Session openSession() throws Exception {
+        Session session = jsch.getSession(username, host, port);
+        session.setPassword(password);
+        session.setConfig("StrictHostKeyChecking", "no");
+        if (validateAfterIdleMillis > 0) {
+            // Keep-alives make a dead connection fail instead of leaving a validation round trip hanging
+            session.setServerAliveInterval((int) Math.min(validateAfterIdleMillis, Integer.MAX_VALUE));
+        }
+        session.connect();
+        log.info("Opened SFTP session to {}:{}", host, port);
+        return session;
+    }
+
+    private synchronized void destroy(PooledChannel pooled) {
+        pooled.channel.disconnect();
+        pooled.owner.openChannels--;
+        if (pooled.owner.openChannels <= 0 && !pooled.owner.session.isConnected()) {
+            sessions.remove(pooled.owner);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sftp.pool.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - maxIdleMillis;
+        Iterator<PooledChannel> it = idleChannels.iterator();
+        while (it.hasNext()) {
+            PooledChannel pooled = it.next();
+            if (pooled.lastUsed < cutoff && idleChannels.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        synchronized (this) {
+            Iterator<PooledSession> sessionIt = sessions.iterator();
+            while (sessionIt.hasNext()) {
+                PooledSession pooledSession = sessionIt.next();
+                if (pooledSession.openChannels <= 0) {
+                    pooledSession.session.disconnect();
+                    sessionIt.remove();
+                    log.info("Closed idle SFTP session to {}", host);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        PooledChannel pooled;
+        while ((pooled = idleChannels.pollFirst()) != null) {
+            pooled.channel.disconnect();
+        }
+        for (PooledSession pooledSession : sessions) {
+            pooledSession.session.disconnect();
+        }
+        sessions.clear();
+    }
+
+    /**
+     * Holds a channel for longer than a single callback, e.g. for the duration of a streamed transfer.
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledChannel pooled;
+        private boolean released;
+
+        private Lease(PooledChannel pooled) {
+            this.pooled = pooled;
+        }
+
+        public ChannelSftp getChannel() {
+            return pooled.channel;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(pooled);
+            }
+        }
+    }
+
+    private static final class PooledSession {
+        private final Session session;
+        private int openChannels;
+
+        private PooledSession(Session session) {
+            this.session = session;
+        }
+    }
+
+    private static final class PooledChannel {
+        private final PooledSession owner;
+        private final ChannelSftp channel;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledChannel(PooledSession owner, ChannelSftp channel) {
+            this.owner = owner;
+            this.channel = channel;
+        }
+
+        private boolean isValid() {
+            return owner.session.isConnected() && channel.isConnected() && !channel.isClosed();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.codec.TransferCodec;
+import com.example.batchjobs.codec.TransferCodecFactory;
+import com.example.batchjobs.exception.JobException;
+import com.example.batchjobs.model.RemoteFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Downloads a batch of remote files concurrently. Small files go through the resumable
+ * single-stream path of {@link SftpService#downloadFile}; files above the range threshold are
+ * split into byte ranges fetched in parallel on separate channels and written in place, and the
+ * finished ranges are recorded so a retry only fetches the rest. With a line processor each file
+ * is instead streamed through {@link SftpLineTransformer}.
+ */
+@Slf4j
+@Service
+public class SftpDownloadEngine implements DisposableBean {
+    private final SftpService sftpService;
+    private final SftpLineTransformer lineTransformer;
+    private final TransferCodecFactory codecFactory;
+    private final TransferThrottle transferThrottle;
+    private final long rangeThreshold;
+    private final int rangeParts;
+    private final ThreadPoolExecutor fileExecutor;
+    // Ranges run on their own executor so file tasks waiting on ranges cannot starve it
+    private final ThreadPoolExecutor rangeExecutor;
+
+    public SftpDownloadEngine(SftpService sftpService, SftpLineTransformer lineTransformer, TransferCodecFactory codecFactory,
+                              TransferThrottle transferThrottle,
+                              @Value("${sftp.download.parallelism:4}") int parallelism,
+                              @Value("${sftp.download.range-threshold-bytes:268435456}") long rangeThreshold,
+                              @Value("${sftp.download.range-parts:4}") int rangeParts) {
+        this.sftpService = sftpService;
+        this.lineTransformer = lineTransformer;
+        this.codecFactory = codecFactory;
+        this.transferThrottle = transferThrottle;
+        this.rangeThreshold = rangeThreshold;
+        this.rangeParts = rangeParts;
+        this.fileExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(parallelism);
+        this.rangeExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(rangeParts);
+    }
+
+    public void downloadAll(List<? extends RemoteFile> files, String outputDir) {
+        downloadAll(files, outputDir, null);
+    }
+
+    public void downloadAll(List<? extends RemoteFile> files, String outputDir, ItemProcessor<String, String> lineProcessor) {
+        List<CompletableFuture<Void>> downloads = new ArrayList<>(files.size());
+        for (RemoteFile file : files) {
+            Path localPath = Paths.get(outputDir, file.getLocalName());
+            // Pool threads run outside the step, so they carry the priority of the calling job along
+            downloads.add(CompletableFuture.runAsync(transferThrottle.inheritPriority(lineProcessor == null
+                    ? () -> download(file, localPath)
+                    : () -> transform(file, localPath, lineProcessor)), fileExecutor));
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (CompletableFuture<Void> download : downloads) {
+            try {
+                download.join();
+            } catch (CompletionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        if (!failures.isEmpty()) {
+            JobException failure = new JobException(failures.size() + " of " + files.size() + " downloads failed",
+                    failures.get(0));
+            failures.stream().skip(1).forEach(failure::addSuppressed);
+            throw failure;
+        }
+    }
+
+    public int getQueuedDownloads() {
+        return fileExecutor.getQueue().size() + rangeExecutor.getQueue().size();
+    }
+
+    private void download(RemoteFile file, Path localPath) {
+        TransferCodec codec = codecFactory.forFileName(file.getName());
+        boolean decoded = !codec.getExtension().isEmpty();
+        Path storedPath = SftpService.decodedPath(localPath, codec);
+        try {
+            if (isCurrent(file, storedPath, decoded)) {
+                log.info("File {} already present at {}, skipping", file.getName(), storedPath);
+                return;
+            }
+        } catch (Exception e) {
+            throw new JobException("Failed to inspect " + storedPath, e);
+        }
+
+        if (file.getSize() >= rangeThreshold && rangeParts > 1 && !decoded) {
+            downloadRanges(file, localPath);
+        } else {
+            sftpService.downloadFile(file.getName(), localPath.toString());
+        }
+        try {
+            // Stamped with the remote modification time so a later run can tell the copy is current
+            Files.setLastModifiedTime(storedPath, FileTime.fromMillis(file.getModifiedTime()));
+        } catch (IOException e) {
+            log.warn("Could not set the modification time of {}: {}", storedPath, e.getMessage());
+        }
+        log.info("Downloaded file {} to {}", file.getName(), storedPath);
+    }
+
+    /**
+     * A local copy counts as current only with the modification time of the remote file and, unless
+     * it was decoded from a compressed file, its size; a rewritten remote file of the same size is
+     * downloaded again.
+     */
+    private static boolean isCurrent(RemoteFile file, Path storedPath, boolean decoded) throws IOException {
+        return Files.exists(storedPath)
+                && (decoded || Files.size(storedPath) == file.getSize())
+                && Files.getLastModifiedTime(storedPath).toMillis() == file.getModifiedTime();
+    }
+
+    private void transform(RemoteFile file, Path localPath, ItemProcessor<String, String> lineProcessor) {
+        long lines = lineTransformer.transform(file.getName(), localPath, lineProcessor);
+        log.info("Downloaded file {} to {} ({} lines after processing)", file.getName(), localPath, lines);
+    }
+
+    private void downloadRanges(RemoteFile file, Path localPath) {
+        Path partPath = SftpService.partPath(localPath);
+        Path progressPath = localPath.resolveSibling(localPath.getFileName() + ".ranges");
+        try {
+            Files.createDirectories(localPath.getParent());
+            Set<Long> completed = completedRanges(file, partPath, progressPath);
+            if (completed.isEmpty()) {
+                try (RandomAccessFile target = new RandomAccessFile(partPath.toFile(), "rw")) {
+                    target.setLength(file.getSize());
+                }
+                Files.writeString(progressPath, version(file) + "\n");
+            } else {
+                log.info("Resuming {} with {} ranges already downloaded", file.getName(), completed.size());
+            }
+
+            long rangeSize = (file.getSize() + rangeParts - 1) / rangeParts;
+            List<CompletableFuture<Void>> ranges = new ArrayList<>(rangeParts);
+            for (long offset = 0; offset < file.getSize(); offset += rangeSize) {
+                long start = offset;
+                long length = Math.min(rangeSize, file.getSize() - offset);
+                if (completed.contains(start)) {
+                    continue;
+                }
+                ranges.add(CompletableFuture.runAsync(transferThrottle.inheritPriority(() -> {
+                    sftpService.downloadRange(file.getName(), partPath, start, length);
+                    recordRange(progressPath, start);
+                }), rangeExecutor));
+            }
+            CompletableFuture.allOf(ranges.toArray(new CompletableFuture[0])).join();
+
+            Files.move(partPath, localPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(progressPath);
+        } catch (CompletionException e) {
+            throw new JobException("Failed to download " + file.getName() + " in ranges", e.getCause());
+        } catch (Exception e) {
+            throw new JobException("Failed to download " + file.getName() + " in ranges", e);
+        }
+    }
+
+    /**
+     * Start offsets of the ranges a failed attempt already wrote into the part file. The progress
+     * file begins with the size and modification time of the remote file, so ranges of an older
+     * version are never reused.
+     */
+    private Set<Long> completedRanges(RemoteFile file, Path partPath, Path progressPath) throws IOException {
+        Set<Long> completed = new HashSet<>();
+        if (!Files.exists(progressPath) || !Files.exists(partPath) || Files.size(partPath) != file.getSize()) {
+            return completed;
+        }
+        List<String> lines = Files.readAllLines(progressPath);
+        if (lines.isEmpty() || !lines.get(0).equals(version(file))) {
+            return completed;
+        }
+        for (String line : lines.subList(1, lines.size())) {
+            if (!line.isBlank()) {
+                completed.add(Long.parseLong(line.trim()));
+            }
+        }
+        return completed;
+    }
+
+    private static synchronized void recordRange(Path progressPath, long start) {
+        try {
+            Files.writeString(progressPath, start + "\n", StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // Losing the record only means the range is fetched again on the next attempt
+            log.warn("Could not record finished range {} in {}: {}", start, progressPath, e.getMessage());
+        }
+    }
+
+    private static String version(RemoteFile file) {
+        return file.getSize() + ":" + file.getModifiedTime();
+    }
+
+    @Override
+    public void destroy() {
+        fileExecutor.shutdownNow();
+        rangeExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.config.VirtualThreads;
+import com.example.batchjobs.exception.JobException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Downloads a remote text file and transforms it line by line on the way to disk, so only the
+ * processed output is ever written locally. A reader thread splits the remote stream into batches
+ * of lines and hands them over a queue of at most {@code buffer-batches} batches to the calling
+ * thread, which runs the processor and writes the result; network waits and processing overlap,
+ * and a slow consumer applies back-pressure to the download.
+ */
+@Slf4j
+@Service
+public class SftpLineTransformer implements DisposableBean {
+    private static final int BATCH_LINES = 512;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Compared by identity to mark the end of the stream
+    private static final List<String> END_OF_STREAM = new ArrayList<>(0);
+
+    private final SftpService sftpService;
+    private final int bufferBatches;
+    private final ExecutorService readerExecutor = Executors.newCachedThreadPool(VirtualThreads.factory("sftp-line-reader-"));
+
+    public SftpLineTransformer(SftpService sftpService,
+                               @Value("${jobs.sftp-to-file.transform-buffer-batches:16}") int bufferBatches) {
+        this.sftpService = sftpService;
+        this.bufferBatches = bufferBatches;
+    }
+
+    /**
+     * @return the number of lines written; lines the processor filtered out are dropped
+     */
+    public long transform(String remoteFileName, Path localPath, ItemProcessor<String, String> processor) {
+        Path partPath = SftpService.partPath(localPath);
+        BlockingQueue<List<String>> buffer = new ArrayBlockingQueue<>(bufferBatches);
+        AtomicReference<Exception> readFailure = new AtomicReference<>();
+        Future<?> reader = null;
+        try {
+            Files.createDirectories(localPath.getParent());
+            InputStream input = sftpService.openDownloadStream(remoteFileName);
+            reader = readerExecutor.submit(() -> readLines(input, buffer, readFailure));
+
+            long written = 0;
+            try (BufferedWriter output = Files.newBufferedWriter(partPath, StandardCharsets.UTF_8)) {
+                for (List<String> batch = buffer.take(); batch != END_OF_STREAM; batch = buffer.take()) {
+                    for (String line : batch) {
+                        String result = processor.process(line);
+                        if (result != null) {
+                            output.write(result);
+                            output.write('\n');
+                            written++;
+                        }
+                    }
+                }
+            }
+            if (readFailure.get() != null) {
+                throw readFailure.get();
+            }
+
+            Files.move(partPath, localPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } catch (Exception e) {
+            if (reader != null) {
+                // Unblocks the reader if it is waiting for queue space; it closes the stream itself
+                reader.cancel(true);
+            }
+            deleteQuietly(partPath);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new JobException("Failed to transform " + remoteFileName + " into " + localPath, e);
+        }
+    }
+
+    private static void readLines(InputStream input, BlockingQueue<List<String>> buffer,
+                                  AtomicReference<Exception> failure) {
+        try {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                List<String> batch = new ArrayList<>(BATCH_LINES);
+                for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                    batch.add(line);
+                    if (batch.size() == BATCH_LINES) {
+                        buffer.put(batch);
+                        batch = new ArrayList<>(BATCH_LINES);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    buffer.put(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failure.set(e);
+            }
+            buffer.put(END_OF_STREAM);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        readerExecutor.shutdownNow();
+    }
+}
@@ -1,21 +1,44 @@
 package com.example.batchjobs.service;
 
+import com.example.batchjobs.codec.TransferCodec;
+import com.example.batchjobs.codec.TransferCodecFactory;
+import com.example.batchjobs.metrics.TransferMetrics;
 import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Vector;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SftpService {
-    private final ChannelSftp channelSftp;
+    private static final int RANGE_BUFFER_SIZE = 256 * 1024;
+
+    private final SftpChannelPool channelPool;
+    private final TransferCodecFactory codecFactory;
+    private final TransferMetrics transferMetrics;
+    private final RemoteMetadataCache metadataCache;
+    private final TransferThrottle transferThrottle;
 
     @Value("${sftp.remote.directory.input}")
     private String remoteInputDir;
@@ -24,12 +47,22 @@ public class SftpService {
     private String remoteOutputDir;
 
     public void uploadFile(String localFilePath, String remoteFileName) {
-        try {
-            channelSftp.cd(remoteOutputDir);
-            try (InputStream inputStream = Files.newInputStream(Paths.get(localFilePath))) {
-                channelSftp.put(inputStream, remoteFileName);
-            }
-            log.info("File {} uploaded successfully to SFTP", remoteFileName);
+        uploadFile(localFilePath, remoteFileName, codecFactory.forName("none"));
+    }
+
+    public void uploadFile(String localFilePath, String remoteFileName, TransferCodec codec) {
+        String remotePath = remotePath(remoteOutputDir, remoteFileName + codec.getExtension());
+        long start = System.nanoTime();
+        try (TransferThrottle.Permit permit = transferThrottle.begin()) {
+            long bytes = channelPool.execute(channel -> {
+                try (InputStream inputStream = Files.newInputStream(Paths.get(localFilePath));
+                     OutputStream outputStream = codec.encode(permit.throttle(channel.put(remotePath, ChannelSftp.OVERWRITE)))) {
+                    return inputStream.transferTo(outputStream);
+                }
+            });
+            metadataCache.invalidate(remotePath);
+            transferMetrics.record(TransferMetrics.UPLOAD, bytes, System.nanoTime() - start);
+            log.info("File {} uploaded successfully to SFTP", remotePath);
         } catch (Exception e) {
             log.error("Error uploading file to SFTP: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to upload file to SFTP", e);
@@ -37,27 +70,316 @@ public class SftpService {
     }
 
     public void downloadFile(String remoteFileName, String localFilePath) {
-        try {
-            channelSftp.cd(remoteInputDir);
-            Path localPath = Paths.get(localFilePath);
+        String remotePath = remotePath(remoteInputDir, remoteFileName);
+        TransferCodec codec = codecFactory.forFileName(remoteFileName);
+        long start = System.nanoTime();
+        try (TransferThrottle.Permit permit = transferThrottle.begin()) {
+            Path localPath = decodedPath(Paths.get(localFilePath), codec);
+            Path partPath = partPath(localPath);
             Files.createDirectories(localPath.getParent());
-            
-            try (OutputStream outputStream = Files.newOutputStream(localPath)) {
-                channelSftp.get(remoteFileName, outputStream);
-            }
-            log.info("File {} downloaded successfully from SFTP", remoteFileName);
+
+            long bytes = channelPool.execute(channel -> {
+                if (codec.getExtension().isEmpty()) {
+                    // RESUME continues from the length of a partial file left by an earlier attempt
+                    long resumedFrom = Files.exists(partPath) ? Files.size(partPath) : 0;
+                    channel.get(remotePath, partPath.toString(), permit.monitor(), ChannelSftp.RESUME);
+                    return Files.size(partPath) - resumedFrom;
+                }
+                try (InputStream inputStream = codec.decode(permit.throttle(channel.get(remotePath)));
+                     OutputStream outputStream = Files.newOutputStream(partPath)) {
+                    return inputStream.transferTo(outputStream);
+                }
+            });
+            Files.move(partPath, localPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            metadataCache.invalidateAttributes(remotePath);
+            transferMetrics.record(TransferMetrics.DOWNLOAD, bytes, System.nanoTime() - start);
+            log.info("File {} downloaded successfully from SFTP", remotePath);
         } catch (Exception e) {
             log.error("Error downloading file from SFTP: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to download file from SFTP", e);
         }
     }
 
+    public void downloadRange(String remoteFileName, Path targetPath, long offset, long length) {
+        String remotePath = remotePath(remoteInputDir, remoteFileName);
+        long start = System.nanoTime();
+        try (TransferThrottle.Permit permit = transferThrottle.begin()) {
+            channelPool.execute(channel -> {
+                try (InputStream inputStream = permit.throttle(channel.get(remotePath, null, offset));
+                     FileChannel target = FileChannel.open(targetPath, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(RANGE_BUFFER_SIZE);
+                    long position = offset;
+                    long remaining = length;
+                    while (remaining > 0) {
+                        int read = inputStream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), remaining));
+                        if (read < 0) {
+                            throw new IOException("Unexpected end of " + remotePath + " at offset " + position);
+                        }
+                        buffer.limit(read).position(0);
+                        while (buffer.hasRemaining()) {
+                            position += target.write(buffer, position);
+                        }
+                        remaining -= read;
+                    }
+                }
+                return null;
+            });
+            transferMetrics.record(TransferMetrics.DOWNLOAD, length, System.nanoTime() - start);
+        } catch (Exception e) {
+            log.error("Error downloading range {}+{} of {}: {}", offset, length, remotePath, e.getMessage(), e);
+            throw new RuntimeException("Failed to download file range from SFTP", e);
+        }
+    }
+
+    /**
+     * Where {@link #downloadFile} stores a file: compressed files are decoded on the fly and
+     * stored without their codec suffix.
+     */
+    public static Path decodedPath(Path localPath, TransferCodec codec) {
+        return Paths.get(StringUtils.removeEnd(localPath.toString(), codec.getExtension()));
+    }
+
+    public static Path partPath(Path localPath) {
+        return localPath.resolveSibling(localPath.getFileName() + ".part");
+    }
+
+    public OutputStream openUploadStream(String remoteFileName, TransferCodec codec) {
+        OutputStream remoteStream = openUploadStream(remoteFileName, 0);
+        try {
+            return codec.encode(remoteStream);
+        } catch (Exception e) {
+            try {
+                remoteStream.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            log.error("Error opening SFTP upload stream: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to open SFTP upload stream", e);
+        }
+    }
+
+    /**
+     * Opens a raw upload stream. With a positive {@code resumeOffset} the existing remote file is
+     * cut back to that length and written from there on instead of being replaced.
+     */
+    public OutputStream openUploadStream(String remoteFileName, long resumeOffset) {
+        String remotePath = remotePath(remoteOutputDir, remoteFileName);
+        TransferThrottle.Permit permit = null;
+        SftpChannelPool.Lease lease = null;
+        try {
+            permit = transferThrottle.begin();
+            TransferThrottle.Permit heldPermit = permit;
+            lease = channelPool.lease();
+            SftpChannelPool.Lease heldLease = lease;
+            OutputStream remoteStream = resumeOffset > 0
+                    ? resume(lease.getChannel(), remotePath, resumeOffset)
+                    : lease.getChannel().put(remotePath, ChannelSftp.OVERWRITE);
+            metadataCache.invalidate(remotePath);
+            long start = System.nanoTime();
+            log.info("Streaming upload to {} started at byte {}", remotePath, resumeOffset);
+            return new FilterOutputStream(heldPermit.throttle(remoteStream)) {
+                private long bytes;
+                private boolean closed;
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    bytes += len;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                        transferMetrics.record(TransferMetrics.UPLOAD, bytes, System.nanoTime() - start);
+                    } finally {
+                        metadataCache.invalidate(remotePath);
+                        heldLease.close();
+                        heldPermit.close();
+                    }
+                }
+            };
+        } catch (Exception e) {
+            if (lease != null) {
+                lease.close();
+            }
+            if (permit != null) {
+                permit.close();
+            }
+            log.error("Error opening SFTP upload stream: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to open SFTP upload stream", e);
+        }
+    }
+
+    private OutputStream resume(ChannelSftp channel, String remotePath, long offset) throws SftpException, IOException {
+        SftpATTRS attrs = channel.stat(remotePath);
+        if (attrs.getSize() < offset) {
+            throw new IOException("Remote file " + remotePath + " holds " + attrs.getSize()
+                    + " bytes, fewer than the " + offset + " already committed");
+        }
+        if (attrs.getSize() > offset) {
+            // Drop whatever was written after the last commit; the other attributes are set to their current values
+            attrs.setSIZE(offset);
+            channel.setStat(remotePath, attrs);
+        }
+        return channel.put(remotePath, null, ChannelSftp.RESUME, 0);
+    }
+
+    public InputStream openDownloadStream(String remoteFileName) {
+        String remotePath = remotePath(remoteInputDir, remoteFileName);
+        TransferCodec codec = codecFactory.forFileName(remoteFileName);
+        TransferThrottle.Permit permit = null;
+        SftpChannelPool.Lease lease = null;
+        try {
+            permit = transferThrottle.begin();
+            TransferThrottle.Permit heldPermit = permit;
+            lease = channelPool.lease();
+            SftpChannelPool.Lease heldLease = lease;
+            InputStream remoteStream = heldPermit.throttle(lease.getChannel().get(remotePath));
+            long start = System.nanoTime();
+            log.info("Streaming download of {} started", remotePath);
+            return codec.decode(new FilterInputStream(remoteStream) {
+                private long bytes;
+                private boolean closed;
+
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    if (b >= 0) {
+                        bytes++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = in.read(b, off, len);
+                    if (read > 0) {
+                        bytes += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                        transferMetrics.record(TransferMetrics.DOWNLOAD, bytes, System.nanoTime() - start);
+                    } finally {
+                        heldLease.close();
+                        heldPermit.close();
+                    }
+                }
+            });
+        } catch (Exception e) {
+            if (lease != null) {
+                lease.close();
+            }
+            if (permit != null) {
+                permit.close();
+            }
+            log.error("Error opening SFTP download stream: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to open SFTP download stream", e);
+        }
+    }
+
+    public void renameFile(String fromFileName, String toFileName) {
+        String fromPath = remotePath(remoteOutputDir, fromFileName);
+        String toPath = remotePath(remoteOutputDir, toFileName);
+        try {
+            channelPool.execute(channel -> {
+                // SFTPv3 rename refuses to overwrite, so clear the target first
+                try {
+                    channel.rm(toPath);
+                } catch (SftpException e) {
+                    if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                        throw e;
+                    }
+                }
+                channel.rename(fromPath, toPath);
+                return null;
+            });
+            metadataCache.invalidate(fromPath);
+            metadataCache.invalidate(toPath);
+            log.info("File {} published as {}", fromPath, toPath);
+        } catch (Exception e) {
+            log.error("Error renaming file on SFTP: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to rename file on SFTP", e);
+        }
+    }
+
+    public void deleteFile(String remoteFileName) {
+        String remotePath = remotePath(remoteOutputDir, remoteFileName);
+        try {
+            channelPool.execute(channel -> {
+                channel.rm(remotePath);
+                return null;
+            });
+            metadataCache.invalidate(remotePath);
+        } catch (Exception e) {
+            log.warn("Could not delete {} from SFTP: {}", remotePath, e.getMessage());
+        }
+    }
+
+    public List<ChannelSftp.LsEntry> listFiles(String remoteDirectory) {
+        try {
+            return metadataCache.listing(remoteDirectory, () -> channelPool.execute(channel -> {
+                List<ChannelSftp.LsEntry> files = new ArrayList<>();
+                @SuppressWarnings("unchecked")
+                Vector<ChannelSftp.LsEntry> entries = (Vector<ChannelSftp.LsEntry>) channel.ls(remoteDirectory);
+                for (ChannelSftp.LsEntry entry : entries) {
+                    if (!entry.getAttrs().isDir()) {
+                        files.add(entry);
+                    }
+                }
+                return files;
+            }));
+        } catch (Exception e) {
+            log.error("Error listing SFTP directory {}: {}", remoteDirectory, e.getMessage(), e);
+            throw new RuntimeException("Failed to list SFTP directory", e);
+        }
+    }
+
+    public boolean outputFileExists(String remoteFileName) {
+        return fileExists(remoteOutputDir, remoteFileName);
+    }
+
     public boolean fileExists(String remoteDirectory, String fileName) {
+        String remotePath = remotePath(remoteDirectory, fileName);
         try {
-            channelSftp.cd(remoteDirectory);
-            return channelSftp.ls(fileName).size() > 0;
+            return metadataCache.attributes(remotePath, () -> channelPool.execute(channel -> {
+                try {
+                    return Optional.of(channel.lstat(remotePath));
+                } catch (SftpException e) {
+                    if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                        return Optional.<SftpATTRS>empty();
+                    }
+                    throw e;
+                }
+            })).isPresent();
         } catch (Exception e) {
             return false;
         }
     }
+
+    public static String remotePath(String remoteDirectory, String fileName) {
+        if (remoteDirectory.endsWith("/")) {
+            return remoteDirectory + fileName;
+        }
+        return remoteDirectory + "/" + fileName;
+    }
 }
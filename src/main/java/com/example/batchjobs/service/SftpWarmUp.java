@@ -0,0 +1,43 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.config.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connects the SFTP pool in the background once the application is ready, so the first job
+ * finds open channels without startup ever waiting on the SSH handshake.
+ */
+@Slf4j
+@Component
+public class SftpWarmUp {
+    private final SftpChannelPool channelPool;
+    private final boolean enabled;
+    private final int channels;
+
+    public SftpWarmUp(SftpChannelPool channelPool,
+                      @Value("${sftp.pool.warm-up.enabled:false}") boolean enabled,
+                      @Value("${sftp.pool.warm-up.channels:1}") int channels) {
+        this.channelPool = channelPool;
+        this.enabled = enabled;
+        this.channels = channels;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || channels <= 0) {
+            return;
+        }
+        Thread thread = VirtualThreads.factory("sftp-warm-up-").newThread(() -> {
+            long start = System.nanoTime();
+            int opened = channelPool.warmUp(channels);
+            log.info("SFTP warm-up opened {} of {} channels in {} ms", opened, channels,
+                    (System.nanoTime() - start) / 1_000_000);
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
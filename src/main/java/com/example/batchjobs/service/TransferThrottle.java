@@ -0,0 +1,235 @@
+package com.example.batchjobs.service;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Budget shared by every SFTP transfer of this instance: at most {@code max-concurrent-transfers}
+ * transfers at a time and a token bucket of {@code bytes-per-second} refilled continuously up to
+ * {@code burst-bytes}. When bandwidth runs short, waiting transfers are served by the priority of
+ * their job (see {@link JobPriorities}), then in arrival order. A transfer may overdraw the bucket
+ * by one buffer; the next ones wait until the debt has been paid off.
+ */
+@Component
+public class TransferThrottle {
+    private static final Comparator<Waiter> ORDER = Comparator
+            .comparingInt((Waiter waiter) -> -waiter.priority)
+            .thenComparingLong(waiter -> waiter.sequence);
+
+    private final JobPriorities jobPriorities;
+    private final long bytesPerSecond;
+    private final long burstBytes;
+    private final Semaphore transfers;
+    private final ThreadLocal<Integer> inheritedPriority = new ThreadLocal<>();
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(ORDER);
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long sequence;
+
+    public TransferThrottle(JobPriorities jobPriorities,
+                            @Value("${sftp.throttle.bytes-per-second:0}") long bytesPerSecond,
+                            @Value("${sftp.throttle.burst-bytes:1048576}") long burstBytes,
+                            @Value("${sftp.throttle.max-concurrent-transfers:0}") int maxConcurrentTransfers) {
+        this.jobPriorities = jobPriorities;
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes;
+        this.transfers = maxConcurrentTransfers > 0 ? new Semaphore(maxConcurrentTransfers, true) : null;
+        this.tokens = burstBytes;
+    }
+
+    /**
+     * Waits for a transfer slot. The returned permit must be closed when the transfer ends.
+     */
+    public Permit begin() throws InterruptedException {
+        if (transfers != null) {
+            transfers.acquire();
+        }
+        return new Permit(currentPriority());
+    }
+
+    public int currentPriority() {
+        Integer inherited = inheritedPriority.get();
+        return inherited != null ? inherited : jobPriorities.current();
+    }
+
+    /**
+     * Wraps a task handed to another thread so its transfers keep the priority of the caller.
+     */
+    public Runnable inheritPriority(Runnable task) {
+        int priority = currentPriority();
+        return () -> {
+            Integer previous = inheritedPriority.get();
+            inheritedPriority.set(priority);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    inheritedPriority.remove();
+                } else {
+                    inheritedPriority.set(previous);
+                }
+            }
+        };
+    }
+
+    public int getAvailableTransfers() {
+        return transfers != null ? transfers.availablePermits() : Integer.MAX_VALUE;
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiters.size();
+    }
+
+    private void consume(long bytes, int priority) throws InterruptedIOException {
+        if (bytesPerSecond <= 0 || bytes <= 0) {
+            return;
+        }
+        synchronized (this) {
+            Waiter waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+            try {
+                while (true) {
+                    refill();
+                    boolean first = waiters.peek() == waiter;
+                    if (first && tokens > 0) {
+                        tokens -= bytes;
+                        return;
+                    }
+                    if (first) {
+                        // Sleep until the debt is paid off; the next in line is woken when this one leaves
+                        wait(Math.max(1, (long) Math.ceil(-tokens * 1000 / bytesPerSecond)));
+                    } else {
+                        wait();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for SFTP bandwidth");
+            } finally {
+                waiters.remove(waiter);
+                notifyAll();
+            }
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burstBytes, tokens + (now - lastRefill) * bytesPerSecond / 1e9);
+        lastRefill = now;
+    }
+
+    /**
+     * A transfer slot, carrying the priority of the job that opened it.
+     */
+    public final class Permit implements AutoCloseable {
+        private final int priority;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int priority) {
+            this.priority = priority;
+        }
+
+        public OutputStream throttle(OutputStream out) {
+            if (bytesPerSecond <= 0) {
+                return out;
+            }
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(int b) throws IOException {
+                    consume(1, priority);
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    consume(len, priority);
+                    out.write(b, off, len);
+                }
+            };
+        }
+
+        public InputStream throttle(InputStream in) {
+            if (bytesPerSecond <= 0) {
+                return in;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    if (b >= 0) {
+                        consume(1, priority);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = in.read(b, off, len);
+                    if (read > 0) {
+                        consume(read, priority);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        /**
+         * Progress monitor for JSch's file-to-file transfers; it holds the transfer back in
+         * {@code count} and cancels it when the thread is interrupted.
+         */
+        public SftpProgressMonitor monitor() {
+            if (bytesPerSecond <= 0) {
+                return null;
+            }
+            return new SftpProgressMonitor() {
+                @Override
+                public void init(int op, String src, String dest, long max) {
+                }
+
+                @Override
+                public boolean count(long count) {
+                    try {
+                        consume(count, priority);
+                        return true;
+                    } catch (InterruptedIOException e) {
+                        return false;
+                    }
+                }
+
+                @Override
+                public void end() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true) && transfers != null) {
+                transfers.release();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final int priority;
+        private final long sequence;
+
+        private Waiter(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
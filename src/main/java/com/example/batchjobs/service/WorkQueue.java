@@ -0,0 +1,241 @@
+package com.example.batchjobs.service;
+
+import com.example.batchjobs.model.RemoteFile;
+import com.example.batchjobs.model.WorkItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared table of work items through which several application instances on one database split
+ * the files they discover. Every node offers what it finds; a node then leases a batch with
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} in a short transaction of its own, renews its leases
+ * by heartbeat while it works and marks items done when they are committed. Leases of a node
+ * that stops heartbeating expire and are claimed by the others; an item is handed out at most
+ * {@code max-attempts} times. Lease times use the node clocks, which must be kept in sync.
+ */
+@Slf4j
+@Service
+public class WorkQueue {
+    private static final String CLAIMABLE = "queue_name = ? AND attempts < ? "
+            + "AND (status = 'PENDING' OR (status = 'LEASED' AND lease_until < ?))";
+
+    private static final RowMapper<WorkItem> ITEM_MAPPER = (rs, rowNum) -> {
+        WorkItem item = new WorkItem();
+        item.setId(rs.getLong("id"));
+        item.setItemKey(rs.getString("item_key"));
+        item.setSize(rs.getLong("size"));
+        item.setModifiedTime(rs.getLong("modified_time"));
+        return item;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final String lockClause;
+
+    // Keys this node holds a lease on, per queue, renewed by the heartbeat
+    private final Map<String, Set<String>> held = new ConcurrentHashMap<>();
+
+    public WorkQueue(DataSource dataSource, PlatformTransactionManager transactionManager,
+                     @Value("${jobs.coordination.enabled:false}") boolean enabled,
+                     @Value("${jobs.coordination.node-id:}") String nodeId,
+                     @Value("${jobs.coordination.lease-ms:60000}") long leaseMs,
+                     @Value("${jobs.coordination.max-attempts:3}") int maxAttempts,
+                     @Value("${jobs.coordination.lock-clause:FOR UPDATE SKIP LOCKED}") String lockClause) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.lockClause = lockClause;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Adds files not yet in the queue and puts finished ones back when their size or
+     * modification time changed. Files already pending or leased are left alone.
+     */
+    public void offer(String queue, List<? extends RemoteFile> files) {
+        int added = 0;
+        for (RemoteFile file : files) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                // Each file in its own transaction: a duplicate insert must not abort the others
+                Boolean queued = ownTransaction.execute(status -> {
+                    int reopened = jdbcTemplate.update("UPDATE work_items SET status = 'PENDING', size = ?, modified_time = ?, "
+                                    + "attempts = 0, owner = NULL, lease_until = NULL, updated_at = ? "
+                                    + "WHERE queue_name = ? AND item_key = ? AND status = 'DONE' AND (size <> ? OR modified_time <> ?)",
+                            file.getSize(), file.getModifiedTime(), now, queue, file.getName(), file.getSize(), file.getModifiedTime());
+                    if (reopened > 0) {
+                        return true;
+                    }
+                    Integer known = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM work_items WHERE queue_name = ? AND item_key = ?",
+                            Integer.class, queue, file.getName());
+                    if (known != null && known > 0) {
+                        return false;
+                    }
+                    jdbcTemplate.update("INSERT INTO work_items (queue_name, item_key, size, modified_time, status, attempts, updated_at) "
+                            + "VALUES (?, ?, ?, ?, 'PENDING', 0, ?)", queue, file.getName(), file.getSize(), file.getModifiedTime(), now);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(queued)) {
+                    added++;
+                }
+            } catch (DuplicateKeyException e) {
+                // Another node offered the same file at the same moment
+            }
+        }
+        log.info("Offered {} files to {}, {} newly queued", files.size(), queue, added);
+    }
+
+    /**
+     * Leases up to {@code max} pending or expired items in a transaction of its own, so the
+     * rows are visible as taken to other nodes as soon as this returns.
+     */
+    public List<WorkItem> claim(String queue, int max) {
+        List<WorkItem> claimed = ownTransaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<WorkItem> candidates = jdbcTemplate.query("SELECT id, item_key, size, modified_time FROM work_items WHERE "
+                    + CLAIMABLE + " ORDER BY id LIMIT ? " + lockClause, ITEM_MAPPER, queue, maxAttempts, now, max);
+            List<WorkItem> leased = new ArrayList<>(candidates.size());
+            for (WorkItem item : candidates) {
+                // Guarded again, so correctness does not depend on the lock clause being supported
+                int updated = jdbcTemplate.update("UPDATE work_items SET status = 'LEASED', owner = ?, lease_until = ?, "
+                                + "attempts = attempts + 1, updated_at = ? WHERE id = ? "
+                                + "AND (status = 'PENDING' OR (status = 'LEASED' AND lease_until < ?))",
+                        nodeId, now.plusNanos(leaseMs * 1_000_000), now, item.getId(), now);
+                if (updated == 1) {
+                    leased.add(item);
+                }
+            }
+            return leased;
+        });
+        if (claimed != null && !claimed.isEmpty()) {
+            Set<String> keys = held.computeIfAbsent(queue, name -> ConcurrentHashMap.newKeySet());
+            claimed.forEach(item -> keys.add(item.getItemKey()));
+            log.info("Node {} claimed {} items from {}", nodeId, claimed.size(), queue);
+        }
+        return claimed != null ? claimed : List.of();
+    }
+
+    public boolean hasClaimable(String queue) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM work_items WHERE " + CLAIMABLE,
+                Integer.class, queue, maxAttempts, LocalDateTime.now());
+        return count != null && count > 0;
+    }
+
+    /**
+     * Marks leased items done in the current (chunk) transaction; they stop being renewed once
+     * that transaction commits.
+     */
+    public void complete(String queue, Collection<String> keys) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> arguments = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            arguments.add(new Object[]{now, queue, key, nodeId});
+        }
+        jdbcTemplate.batchUpdate("UPDATE work_items SET status = 'DONE', owner = NULL, lease_until = NULL, updated_at = ? "
+                + "WHERE queue_name = ? AND item_key = ? AND owner = ?", arguments);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(queue, keys);
+                }
+            });
+        } else {
+            forget(queue, keys);
+        }
+    }
+
+    /**
+     * Hands leased items back to the queue right away instead of letting their leases expire.
+     */
+    public void release(String queue, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> released = new ArrayList<>(keys);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> arguments = new ArrayList<>(released.size());
+        for (String key : released) {
+            arguments.add(new Object[]{now, queue, key, nodeId});
+        }
+        ownTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate("UPDATE work_items SET status = 'PENDING', "
+                + "owner = NULL, lease_until = NULL, updated_at = ? "
+                + "WHERE queue_name = ? AND item_key = ? AND owner = ? AND status = 'LEASED'", arguments));
+        forget(queue, released);
+        log.info("Node {} released {} items of {}", nodeId, released.size(), queue);
+    }
+
+    public void releaseAll(String queue) {
+        Set<String> keys = held.get(queue);
+        if (keys != null) {
+            release(queue, keys);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.coordination.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!enabled || held.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+        held.forEach((queue, keys) -> {
+            List<String> renewing = new ArrayList<>(keys);
+            List<Object[]> arguments = new ArrayList<>(renewing.size());
+            for (String key : renewing) {
+                arguments.add(new Object[]{leaseUntil, now, queue, key, nodeId});
+            }
+            int[] counts = jdbcTemplate.batchUpdate("UPDATE work_items SET lease_until = ?, updated_at = ? "
+                    + "WHERE queue_name = ? AND item_key = ? AND owner = ? AND status = 'LEASED'", arguments);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    // Completed meanwhile, or the lease expired and another node took the item over
+                    keys.remove(renewing.get(i));
+                }
+            }
+        });
+    }
+
+    private void forget(String queue, Collection<String> keys) {
+        Set<String> queueKeys = held.get(queue);
+        if (queueKeys != null) {
+            queueKeys.removeAll(keys);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.repository.DataRecordIdAllocator;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts {@code data_records} with multi-row {@code INSERT ... VALUES (...), (...)} statements
+ * of {@code rowsPerStatement} rows, sent as one JDBC batch per chunk, inside the chunk transaction.
+ * Ids come from {@link DataRecordIdAllocator}, so nothing has to be read back after the insert.
+ */
+public class DataRecordBulkWriter implements ItemWriter<DataRecord> {
+    private static final String INSERT = "INSERT INTO data_records (id, field1, field2, field3, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataRecordIdAllocator idAllocator;
+    private final int rowsPerStatement;
+    private final String batchSql;
+
+    public DataRecordBulkWriter(DataSource dataSource, DataRecordIdAllocator idAllocator, int rowsPerStatement) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idAllocator = idAllocator;
+        this.rowsPerStatement = Math.max(1, rowsPerStatement);
+        this.batchSql = insertSql(this.rowsPerStatement);
+    }
+
+    @Override
+    public void write(Chunk<? extends DataRecord> chunk) {
+        List<? extends DataRecord> items = chunk.getItems();
+        LocalDateTime now = LocalDateTime.now();
+        for (DataRecord record : items) {
+            // Kept on the item, so a retried chunk reuses the ids it was given
+            if (record.getId() == null) {
+                record.setId(idAllocator.next());
+            }
+            if (record.getCreatedAt() == null) {
+                record.setCreatedAt(now);
+            }
+        }
+
+        int full = items.size() - items.size() % rowsPerStatement;
+        List<Object[]> batch = new ArrayList<>(full / rowsPerStatement);
+        for (int offset = 0; offset < full; offset += rowsPerStatement) {
+            batch.add(parameters(items, offset, rowsPerStatement));
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(batchSql, batch);
+        }
+        if (full < items.size()) {
+            jdbcTemplate.update(insertSql(items.size() - full), parameters(items, full, items.size() - full));
+        }
+    }
+
+    private static Object[] parameters(List<? extends DataRecord> items, int offset, int rows) {
+        Object[] parameters = new Object[rows * COLUMNS];
+        int i = 0;
+        for (int row = offset; row < offset + rows; row++) {
+            DataRecord record = items.get(row);
+            parameters[i++] = record.getId();
+            parameters[i++] = record.getField1();
+            parameters[i++] = record.getField2();
+            parameters[i++] = record.getField3();
+            parameters[i++] = record.getCreatedAt();
+        }
+        return parameters;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2)).append(INSERT);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+}
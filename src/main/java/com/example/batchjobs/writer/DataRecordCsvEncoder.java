@@ -0,0 +1,255 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.model.DataRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Writes {@link DataRecord} rows as UTF-8 CSV straight into a reusable byte buffer, producing
+ * exactly what a {@code CSVPrinter} with {@code CSVFormat.DEFAULT} writes: minimal quoting with
+ * doubled quotes, {@code \r\n} record separators, nothing for nulls and {@code toString()} forms
+ * of the id and timestamp. Text is encoded and checked for quoting in one pass; a value that turns
+ * out to need quotes is rewound and written again quoted. Unpaired surrogates become {@code ?} as
+ * with {@code OutputStreamWriter}.
+ */
+public class DataRecordCsvEncoder implements Closeable {
+    private static final String[] HEADER = {"ID", "Field1", "Field2", "Field3", "Created At"};
+    private static final byte DELIMITER = ',';
+    private static final byte QUOTE = '"';
+    // CSVFormat quotes values starting with anything up to the comment character
+    private static final char COMMENT = '#';
+    private static final byte REPLACEMENT = '?';
+    // A char takes at most three bytes, and a doubled quote two
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    // Delimiter plus yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final int MAX_DATE_TIME_BYTES = 30;
+    private static final int MAX_LONG_BYTES = 20;
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+
+    public DataRecordCsvEncoder(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public void writeHeader() throws IOException {
+        for (int i = 0; i < HEADER.length; i++) {
+            writeText(HEADER[i], i == 0);
+        }
+        endRecord();
+    }
+
+    public void write(DataRecord record) throws IOException {
+        Long id = record.getId();
+        if (id != null) {
+            writeLong(id);
+        }
+        writeText(record.getField1(), false);
+        writeText(record.getField2(), false);
+        writeText(record.getField3(), false);
+        writeDateTime(record.getCreatedAt());
+        endRecord();
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeText(String value, boolean first) throws IOException {
+        int length = value != null ? value.length() : 0;
+        ensure(length * MAX_BYTES_PER_CHAR + 3);
+        if (!first) {
+            buffer[position++] = DELIMITER;
+        }
+        if (value == null) {
+            return;
+        }
+        if (length == 0) {
+            // An empty first value is quoted so the record does not read as an empty line
+            if (first) {
+                buffer[position++] = QUOTE;
+                buffer[position++] = QUOTE;
+            }
+            return;
+        }
+
+        int start = position;
+        boolean quote = value.charAt(0) <= COMMENT || value.charAt(length - 1) <= ' ';
+        for (int i = 0; i < length && !quote; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == DELIMITER || c == QUOTE || c == '\n' || c == '\r') {
+                    quote = true;
+                } else {
+                    buffer[position++] = (byte) c;
+                }
+            } else {
+                i = encode(value, i);
+            }
+        }
+        if (!quote) {
+            return;
+        }
+
+        position = start;
+        buffer[position++] = QUOTE;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                buffer[position++] = QUOTE;
+                buffer[position++] = QUOTE;
+            } else if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else {
+                i = encode(value, i);
+            }
+        }
+        buffer[position++] = QUOTE;
+    }
+
+    /**
+     * Encodes the non-ASCII char at {@code index} and returns the index of the last char consumed.
+     */
+    private int encode(String value, int index) {
+        char c = value.charAt(index);
+        if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        } else {
+            buffer[position++] = REPLACEMENT;
+        }
+        return index;
+    }
+
+    /**
+     * Leading field of the record; digits and a minus sign never need quotes.
+     */
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeText(Long.toString(value), true);
+            return;
+        }
+        ensure(MAX_LONG_BYTES);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + digitCount(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Same text as {@link LocalDateTime#toString()}: seconds only when not zero and the fraction
+     * in groups of three digits. Such values never need quotes.
+     */
+    private void writeDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            writeText(null, false);
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            writeText(value.toString(), false);
+            return;
+        }
+        ensure(MAX_DATE_TIME_BYTES);
+        buffer[position++] = DELIMITER;
+        writeDigits(year, 4);
+        buffer[position++] = '-';
+        writeDigits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        writeDigits(value.getHour(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[position++] = ':';
+            writeDigits(second, 2);
+            if (nano > 0) {
+                buffer[position++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    writeDigits(nano / 1_000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    writeDigits(nano / 1000, 6);
+                } else {
+                    writeDigits(nano, 9);
+                }
+            }
+        }
+    }
+
+    private void writeDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void endRecord() throws IOException {
+        ensure(2);
+        buffer[position++] = '\r';
+        buffer[position++] = '\n';
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes <= buffer.length) {
+            return;
+        }
+        flushBuffer();
+        if (bytes > buffer.length) {
+            // A single value larger than the whole buffer
+            buffer = new byte[bytes];
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.batchjobs.writer;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes processed lines to a local part file, one per byte range of a split input file, for
+ * {@link RangePartAssembler} to join. The committed length is saved in the step context, and a
+ * restarted step, like a retried chunk, truncates the part file back to it before continuing.
+ */
+public class LocalPartFileWriter implements ItemStreamWriter<String> {
+    public static final String PART_FILE_KEY = "partFile";
+
+    private static final String BYTES_KEY = "bytes";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path partFile;
+    private final String name;
+
+    private FileChannel channel;
+    private OutputStream out;
+    private long bytes;
+    private long committed;
+    // Lines written since the last commit; still set on the next write when the chunk was rolled back
+    private boolean uncommitted;
+
+    public LocalPartFileWriter(Path partFile, String name) {
+        this.partFile = partFile;
+        this.name = name;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        committed = executionContext.containsKey(key()) ? executionContext.getLong(key()) : 0;
+        uncommitted = false;
+        try {
+            Files.createDirectories(partFile.getParent());
+            channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            rollback();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open part file " + partFile, e);
+        }
+        executionContext.putString(PART_FILE_KEY, partFile.toString());
+    }
+
+    @Override
+    public void write(Chunk<? extends String> items) throws IOException {
+        if (uncommitted) {
+            // The previous attempt of this chunk was rolled back; drop whatever of it was written
+            rollback();
+        }
+        uncommitted = true;
+        for (String line : items) {
+            byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+            out.write(encoded);
+            out.write('\n');
+            bytes += encoded.length + 1;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to flush part file " + partFile, e);
+        }
+        committed = bytes;
+        uncommitted = false;
+        executionContext.putLong(key(), committed);
+        executionContext.putString(PART_FILE_KEY, partFile.toString());
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close part file " + partFile, e);
+        } finally {
+            out = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Truncates the part file to the committed length and continues from there. Bytes still in
+     * the old buffer are dropped with it.
+     */
+    private void rollback() throws IOException {
+        channel.truncate(committed);
+        channel.position(committed);
+        bytes = committed;
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    }
+
+    private String key() {
+        return name + "." + BYTES_KEY;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.codec.TransferCodec;
+import com.example.batchjobs.exception.JobException;
+import com.example.batchjobs.partition.FileRangePartitioner;
+import com.example.batchjobs.partition.InputFilePartitioner;
+import com.example.batchjobs.service.SftpService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Joins the part files written by the byte-range workers of each split input file, in range
+ * order, into a single remote upload of the same name, then removes the parts and archives the
+ * source. Ranges completed by an earlier execution of the same job instance are included, so the
+ * step also works after a restart.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RangePartAssembler implements Tasklet {
+    private final SftpService sftpService;
+    private final JobExplorer jobExplorer;
+    private final TransferCodec codec;
+    private final String workerStepName;
+    private final Path archiveDir;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        JobExecution current = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        Map<String, TreeMap<Integer, Path>> partsByFile = new TreeMap<>();
+        Map<String, Integer> rangeCounts = new TreeMap<>();
+        Set<String> seen = new HashSet<>();
+        // Newest execution first, so a re-run range wins over its failed attempt
+        for (JobExecution jobExecution : jobExplorer.getJobExecutions(current.getJobInstance())) {
+            for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                ExecutionContext context = stepExecution.getExecutionContext();
+                if (!stepExecution.getStepName().startsWith(workerStepName + ":")
+                        || stepExecution.getStatus() != BatchStatus.COMPLETED
+                        || !context.containsKey(LocalPartFileWriter.PART_FILE_KEY)
+                        || !seen.add(stepExecution.getStepName())) {
+                    continue;
+                }
+                String inputFile = context.getString(InputFilePartitioner.INPUT_FILE_KEY);
+                partsByFile.computeIfAbsent(inputFile, file -> new TreeMap<>())
+                        .put(context.getInt(FileRangePartitioner.RANGE_INDEX_KEY),
+                                Paths.get(context.getString(LocalPartFileWriter.PART_FILE_KEY)));
+                rangeCounts.put(inputFile, context.getInt(FileRangePartitioner.RANGE_COUNT_KEY));
+            }
+        }
+
+        for (Map.Entry<String, TreeMap<Integer, Path>> entry : partsByFile.entrySet()) {
+            Path sourceFile = Paths.get(entry.getKey());
+            TreeMap<Integer, Path> parts = entry.getValue();
+            if (parts.size() != rangeCounts.get(entry.getKey())) {
+                throw new JobException("Only " + parts.size() + " of " + rangeCounts.get(entry.getKey())
+                        + " ranges of " + sourceFile + " completed");
+            }
+            if (!Files.exists(sourceFile)) {
+                // Already assembled and archived by an earlier execution
+                continue;
+            }
+            assemble(sourceFile, parts);
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    private void assemble(Path sourceFile, TreeMap<Integer, Path> parts) throws IOException {
+        String fileName = sourceFile.getFileName().toString() + codec.getExtension();
+        String stagingName = fileName + SftpCsvExportWriter.STAGING_SUFFIX;
+        try (OutputStream out = sftpService.openUploadStream(stagingName, codec)) {
+            for (Path part : parts.values()) {
+                Files.copy(part, out);
+            }
+        } catch (IOException | RuntimeException e) {
+            sftpService.deleteFile(stagingName);
+            throw e;
+        }
+        sftpService.renameFile(stagingName, fileName);
+        log.info("Uploaded {} from {} range parts", fileName, parts.size());
+
+        for (Path part : parts.values()) {
+            Files.deleteIfExists(part);
+        }
+        try {
+            Files.createDirectories(archiveDir);
+            Files.move(sourceFile, archiveDir.resolve(sourceFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // On Windows this fails while a reader's mapping of the file has not been collected yet
+            log.warn("Could not archive processed file {}: {}", sourceFile, e.getMessage());
+        }
+    }
+}
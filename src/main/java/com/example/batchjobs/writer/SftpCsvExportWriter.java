@@ -0,0 +1,245 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.codec.TransferCodec;
+import com.example.batchjobs.model.DataRecord;
+import com.example.batchjobs.partition.IdRangePartitioner;
+import com.example.batchjobs.service.SftpService;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams the whole step's output into a single remote CSV file. Rows are written to a
+ * staging name and the file is renamed into place only once the step has completed.
+ * Partition workers leave the staged file for {@link StagedExportPublisher} instead.
+ * <p>
+ * With a concatenable codec every chunk is encoded as a segment of its own and the remote length
+ * after each commit is saved in the step context, like {@link SftpLineStreamWriter}: a rolled
+ * back chunk or a restarted step cuts the staged file back to that length and continues there,
+ * and the staged file is kept when the step fails. Other codecs cannot continue a stream, so
+ * their staged file is removed on failure and the export reader does not save its position.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SftpCsvExportWriter implements ItemStreamWriter<DataRecord>, StepExecutionListener {
+    public static final String STAGING_SUFFIX = ".part";
+    public static final String EXPORT_FILE_KEY = "exportFile";
+    public static final String FILE_STAMP_KEY = "export.fileStamp";
+    public static final String BYTES_KEY = "sftpCsvExportWriter.bytes";
+    // Records read into the file, counted across the executions that continued it
+    public static final String READ_COUNT_KEY = "sftpCsvExportWriter.readCount";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SftpService sftpService;
+    private final String filePrefix;
+    private final TransferCodec codec;
+
+    @Setter
+    private boolean publishOnCompletion = true;
+
+    private StepExecution stepExecution;
+    private String fileName;
+    private OutputStream remote;
+    private DataRecordCsvEncoder encoder;
+    private long written;
+    private long committed;
+    private long readBase;
+    // Rows written since the last commit; still set on the next write when the chunk was rolled back
+    private boolean uncommitted;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+        ExecutionContext stepContext = stepExecution.getExecutionContext();
+        if (stepContext.containsKey(EXPORT_FILE_KEY)) {
+            // A restarted step continues the file of the failed execution
+            fileName = stepContext.getString(EXPORT_FILE_KEY);
+            return;
+        }
+        // Fixed once per job instance, so all partitions share it and a restart keeps it
+        ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+        String stamp = jobContext.containsKey(FILE_STAMP_KEY) ? jobContext.getString(FILE_STAMP_KEY)
+                : stepExecution.getJobExecution().getStartTime().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + "_" + stepExecution.getJobExecution().getJobInstance().getInstanceId();
+        jobContext.putString(FILE_STAMP_KEY, stamp);
+        StringBuilder name = new StringBuilder(filePrefix).append('_').append(stamp);
+        if (stepContext.containsKey(IdRangePartitioner.PARTITION_INDEX_KEY)) {
+            name.append(String.format("_part%03d", stepContext.getInt(IdRangePartitioner.PARTITION_INDEX_KEY)));
+        }
+        fileName = name.append(".csv").append(codec.getExtension()).toString();
+        stepContext.putString(EXPORT_FILE_KEY, fileName);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        committed = codec.isConcatenable() ? executionContext.getLong(BYTES_KEY, 0L) : 0L;
+        readBase = codec.isConcatenable() ? executionContext.getLong(READ_COUNT_KEY, 0L) : 0L;
+        if (committed > 0) {
+            log.info("Resuming export {} after {} committed bytes", fileName, committed);
+        }
+        uncommitted = false;
+        openRemote();
+        try {
+            // Started right away so an export without rows still gets its header
+            openEncoder();
+        } catch (IOException e) {
+            discardRemote();
+            throw new ItemStreamException("Failed to open remote CSV export " + fileName, e);
+        }
+    }
+
+    @Override
+    public void write(Chunk<? extends DataRecord> items) throws Exception {
+        if (uncommitted || remote == null) {
+            // The previous attempt of this chunk was rolled back after reaching the stream
+            if (!codec.isConcatenable()) {
+                throw new ItemStreamException("Export " + fileName + " failed and cannot continue with codec "
+                        + codec.getName() + "; restart the job");
+            }
+            discardRemote();
+            openRemote();
+        }
+        try {
+            if (encoder == null) {
+                openEncoder();
+            }
+            uncommitted = true;
+            for (DataRecord record : items) {
+                encoder.write(record);
+            }
+        } catch (Exception e) {
+            // The retried chunk starts over from the last committed byte
+            discardRemote();
+            throw e;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        uncommitted = false;
+        if (!codec.isConcatenable() || encoder == null) {
+            return;
+        }
+        try {
+            // Ends the segment and waits until the server has acknowledged every byte of it
+            encoder.close();
+            encoder = null;
+        } catch (IOException e) {
+            discardRemote();
+            throw new ItemStreamException("Failed to flush remote CSV export " + fileName, e);
+        }
+        committed = written;
+        executionContext.putLong(BYTES_KEY, committed);
+        executionContext.putLong(READ_COUNT_KEY, readBase + stepExecution.getReadCount());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        boolean completed = closeRemote() && stepExecution.getStatus() == BatchStatus.COMPLETED;
+        if (completed) {
+            stepExecution.getExecutionContext().putLong(READ_COUNT_KEY, readBase + stepExecution.getReadCount());
+            if (publishOnCompletion) {
+                sftpService.renameFile(fileName + STAGING_SUFFIX, fileName);
+            }
+            log.info("Exported {} records to {}", stepExecution.getWriteCount(), fileName);
+        } else if (codec.isConcatenable()) {
+            log.warn("Kept incomplete export {} at {} bytes for restart", fileName, committed);
+        } else {
+            sftpService.deleteFile(fileName + STAGING_SUFFIX);
+            log.warn("Discarded incomplete export {}", fileName);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        closeRemote();
+    }
+
+    private void openRemote() {
+        try {
+            remote = sftpService.openUploadStream(fileName + STAGING_SUFFIX, committed);
+            written = committed;
+            encoder = null;
+        } catch (Exception e) {
+            throw new ItemStreamException("Failed to open remote CSV export " + fileName, e);
+        }
+    }
+
+    private void openEncoder() throws IOException {
+        encoder = new DataRecordCsvEncoder(codec.encode(segment()), BUFFER_SIZE);
+        if (written == 0) {
+            encoder.writeHeader();
+        }
+    }
+
+    /**
+     * Encoder target that counts the bytes reaching the remote file and leaves it open when the
+     * encoder is closed at the end of a segment.
+     */
+    private OutputStream segment() {
+        return new FilterOutputStream(remote) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                written += len;
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    private void discardRemote() {
+        encoder = null;
+        if (remote != null) {
+            try {
+                remote.close();
+            } catch (IOException e) {
+                log.debug("Ignoring error closing failed export {}: {}", fileName, e.getMessage());
+            } finally {
+                remote = null;
+            }
+        }
+    }
+
+    private boolean closeRemote() {
+        if (remote == null) {
+            return true;
+        }
+        try {
+            if (encoder != null) {
+                encoder.close();
+            }
+            remote.close();
+            return true;
+        } catch (IOException e) {
+            log.error("Error closing remote CSV export {}: {}", fileName, e.getMessage(), e);
+            return false;
+        } finally {
+            encoder = null;
+            remote = null;
+        }
+    }
+}
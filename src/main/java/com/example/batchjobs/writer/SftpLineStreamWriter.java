@@ -0,0 +1,218 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.codec.TransferCodec;
+import com.example.batchjobs.service.SftpService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Streams processed lines of one local input file to a remote file of the same name. On step
+ * completion the remote file is renamed into place and the local source is moved to the archive
+ * directory.
+ * <p>
+ * With a concatenable codec every chunk is encoded as a segment of its own and the remote length
+ * after each commit is saved in the step context. A rolled-back chunk or a restarted step cuts the
+ * staged remote file back to that length and continues from there, so the staged file is kept
+ * when the step fails. Other codecs cannot continue a stream; their staged file is removed on
+ * failure and written again from the start.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SftpLineStreamWriter implements ItemStreamWriter<String>, StepExecutionListener {
+    public static final String BYTES_KEY = "sftpLineStreamWriter.bytes";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SftpService sftpService;
+    private final TransferCodec codec;
+    private final Path sourceFile;
+    private final Path archiveDir;
+
+    private String fileName;
+    private OutputStream remote;
+    private Writer out;
+    private long written;
+    private long committed;
+    // Lines written since the last commit; still set on the next write when the chunk was rolled back
+    private boolean uncommitted;
+    private boolean archivePending;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        fileName = sourceFile.getFileName().toString() + codec.getExtension();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        committed = codec.isConcatenable() ? executionContext.getLong(BYTES_KEY, 0L) : 0L;
+        if (committed > 0) {
+            log.info("Resuming upload of {} after {} committed bytes", fileName, committed);
+        }
+        uncommitted = false;
+        openRemote();
+    }
+
+    @Override
+    public void write(Chunk<? extends String> items) throws Exception {
+        if (uncommitted || remote == null) {
+            // The previous attempt of this chunk was rolled back after reaching the stream
+            if (!codec.isConcatenable()) {
+                throw new ItemStreamException("Upload of " + fileName + " failed and cannot continue with codec "
+                        + codec.getName() + "; restart the step");
+            }
+            discardRemote();
+            openRemote();
+        }
+        try {
+            if (out == null) {
+                out = new BufferedWriter(new OutputStreamWriter(codec.encode(segment()), StandardCharsets.UTF_8), BUFFER_SIZE);
+            }
+            uncommitted = true;
+            for (String line : items) {
+                out.write(line);
+                out.write('\n');
+            }
+        } catch (Exception e) {
+            // The retried chunk starts over from the last committed byte
+            discardRemote();
+            throw e;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        uncommitted = false;
+        if (!codec.isConcatenable() || out == null) {
+            return;
+        }
+        try {
+            // Ends the segment and waits until the server has acknowledged every byte of it
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            discardRemote();
+            throw new ItemStreamException("Failed to flush remote file " + fileName, e);
+        }
+        committed = written;
+        executionContext.putLong(BYTES_KEY, committed);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        boolean completed = closeWriter() && stepExecution.getStatus() == BatchStatus.COMPLETED;
+        if (!completed) {
+            if (codec.isConcatenable()) {
+                log.warn("Kept incomplete upload {} at {} bytes for restart", fileName, committed);
+            } else {
+                sftpService.deleteFile(fileName + SftpCsvExportWriter.STAGING_SUFFIX);
+                log.warn("Discarded incomplete upload {}", fileName);
+            }
+            return null;
+        }
+
+        sftpService.renameFile(fileName + SftpCsvExportWriter.STAGING_SUFFIX, fileName);
+        // Streams are closed after the listeners run; archive then, once the reader has released the file
+        archivePending = true;
+        log.info("Uploaded {} processed lines from {}", stepExecution.getWriteCount(), sourceFile);
+        return null;
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        closeWriter();
+        if (archivePending) {
+            archivePending = false;
+            try {
+                Files.createDirectories(archiveDir);
+                Files.move(sourceFile, archiveDir.resolve(sourceFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.warn("Could not archive processed file {}: {}", sourceFile, e.getMessage());
+            }
+        }
+    }
+
+    private void openRemote() {
+        try {
+            remote = sftpService.openUploadStream(fileName + SftpCsvExportWriter.STAGING_SUFFIX, committed);
+            written = committed;
+        } catch (Exception e) {
+            throw new ItemStreamException("Failed to open remote file " + fileName, e);
+        }
+    }
+
+    /**
+     * Encoder target that counts the bytes reaching the remote file and leaves it open when the
+     * encoder is closed at the end of a segment.
+     */
+    private OutputStream segment() {
+        return new FilterOutputStream(remote) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                written += len;
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    private void discardRemote() {
+        out = null;
+        if (remote != null) {
+            try {
+                remote.close();
+            } catch (IOException e) {
+                log.debug("Ignoring error closing failed upload {}: {}", fileName, e.getMessage());
+            } finally {
+                remote = null;
+            }
+        }
+    }
+
+    private boolean closeWriter() {
+        if (remote == null) {
+            return true;
+        }
+        try {
+            if (out != null) {
+                out.close();
+            }
+            remote.close();
+            return true;
+        } catch (IOException e) {
+            log.error("Error closing remote file {}: {}", fileName, e.getMessage(), e);
+            return false;
+        } finally {
+            out = null;
+            remote = null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.service.SftpService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Renames the staged part files written by the partition workers into place once every
+ * partition has completed. Partitions completed by an earlier execution of the same job
+ * instance are included, and parts an interrupted publish already renamed are skipped, so the
+ * step also works after a restart.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StagedExportPublisher implements Tasklet {
+    private final SftpService sftpService;
+    private final JobExplorer jobExplorer;
+    private final String workerStepName;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        JobExecution current = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        Set<String> seen = new HashSet<>();
+        int published = 0;
+        // Newest execution first, so a re-run partition wins over its failed attempt
+        for (JobExecution jobExecution : jobExplorer.getJobExecutions(current.getJobInstance())) {
+            for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                if (!stepExecution.getStepName().startsWith(workerStepName + ":")
+                        || stepExecution.getStatus() != BatchStatus.COMPLETED
+                        || !stepExecution.getExecutionContext().containsKey(SftpCsvExportWriter.EXPORT_FILE_KEY)
+                        || !seen.add(stepExecution.getStepName())) {
+                    continue;
+                }
+                String fileName = stepExecution.getExecutionContext().getString(SftpCsvExportWriter.EXPORT_FILE_KEY);
+                if (!sftpService.outputFileExists(fileName + SftpCsvExportWriter.STAGING_SUFFIX)
+                        && sftpService.outputFileExists(fileName)) {
+                    continue;
+                }
+                sftpService.renameFile(fileName + SftpCsvExportWriter.STAGING_SUFFIX, fileName);
+                published++;
+            }
+        }
+        log.info("Published {} export part files", published);
+        return RepeatStatus.FINISHED;
+    }
+}
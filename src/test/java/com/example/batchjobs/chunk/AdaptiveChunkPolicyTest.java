@@ -0,0 +1,96 @@
+package com.example.batchjobs.chunk;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveChunkPolicyTest {
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private final StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+    @Test
+    void completesChunkAfterCurrentSize() {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 3, 1, 100, HOUR_MILLIS, 0.0);
+        RepeatContext context = policy.start(new RepeatContextSupport(null));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(policy.isComplete(context));
+            ((RepeatContextSupport) context).increment();
+        }
+        assertTrue(policy.isComplete(context));
+        assertTrue(policy.isComplete(policy.start(null), RepeatStatus.FINISHED));
+    }
+
+    @Test
+    void fastCommitsGrowTheChunkUpToTheMaximum() throws Exception {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 10, 1, 50, HOUR_MILLIS, 0.0);
+        // Same time per chunk, so throughput rises with the size
+        runChunk(policy, 10, 10);
+        assertEquals(20, policy.getChunkSize());
+        runChunk(policy, 20, 10);
+        assertEquals(40, policy.getChunkSize());
+        runChunk(policy, 40, 10);
+        assertEquals(50, policy.getChunkSize());
+    }
+
+    @Test
+    void slowCommitsShrinkTheChunkDownToTheMinimum() throws Exception {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 40, 15, 100, 0, 0.0);
+        runChunk(policy, 40, 0);
+        assertEquals(20, policy.getChunkSize());
+        runChunk(policy, 20, 0);
+        assertEquals(15, policy.getChunkSize());
+    }
+
+    @Test
+    void growthThatLowersThroughputIsUndone() throws Exception {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 10, 1, 100, HOUR_MILLIS, 0.0);
+        runChunk(policy, 10, 20);
+        assertEquals(20, policy.getChunkSize());
+        // Twice the items in ten times the time
+        runChunk(policy, 20, 200);
+        assertEquals(10, policy.getChunkSize());
+    }
+
+    @Test
+    void shortChunkAtEndOfInputDoesNotResize() throws Exception {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 10, 1, 100, HOUR_MILLIS, 0.0);
+        runChunk(policy, 4, 0);
+        assertEquals(10, policy.getChunkSize());
+    }
+
+    @Test
+    void lowHeapTurnsGrowthIntoShrinking() throws Exception {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 10, 1, 100, HOUR_MILLIS, 1.0);
+        runChunk(policy, 10, 0);
+        assertEquals(5, policy.getChunkSize());
+    }
+
+    @Test
+    void failedChunkHalvesTheSize() {
+        AdaptiveChunkPolicy policy = new AdaptiveChunkPolicy("step", 10, 4, 100, HOUR_MILLIS, 0.0);
+        ChunkContext context = new ChunkContext(new StepContext(stepExecution));
+        policy.beforeChunk(context);
+        policy.afterChunkError(context);
+        assertEquals(5, policy.getChunkSize());
+        policy.afterChunkError(context);
+        assertEquals(4, policy.getChunkSize());
+    }
+
+    private void runChunk(AdaptiveChunkPolicy policy, int items, long millis) throws InterruptedException {
+        ChunkContext context = new ChunkContext(new StepContext(stepExecution));
+        policy.beforeChunk(context);
+        Thread.sleep(millis);
+        stepExecution.setReadCount(stepExecution.getReadCount() + items);
+        policy.afterChunk(context);
+    }
+}
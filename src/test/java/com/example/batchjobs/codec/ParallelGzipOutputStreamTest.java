@@ -0,0 +1,49 @@
+package com.example.batchjobs.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ParallelGzipOutputStreamTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(2);
+
+    @Test
+    void emptyStreamIsValidGzip() throws IOException {
+        assertArrayEquals(new byte[0], gunzip(gzip(new byte[0], 16)));
+    }
+
+    @Test
+    void roundTripsAcrossBlocksAndFlushes() throws IOException {
+        byte[] data = new byte[10_000];
+        new Random(42).nextBytes(data);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, 6, 1000, POOL)) {
+            gzip.write(data, 0, 3333);
+            gzip.flush();
+            gzip.write(data[3333]);
+            gzip.write(data, 3334, data.length - 3334);
+        }
+        assertArrayEquals(data, gunzip(compressed.toByteArray()));
+    }
+
+    private static byte[] gzip(byte[] data, int blockSize) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, 6, blockSize, POOL)) {
+            gzip.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.batchjobs.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Pins the single-pass processor to the regex implementation it replaced, which is kept below as
+ * {@link #regexProcess} and used as the reference.
+ */
+class FileItemProcessorTest {
+    private static final Pattern CSV_PATTERN = Pattern.compile("^[^,]+(,[^,]+)*$");
+
+    private final FileItemProcessor processor = new FileItemProcessor();
+
+    @Test
+    void rejectsLinesWithoutFiveNonEmptyFields() throws Exception {
+        for (String line : List.of("", "   ", "a,b,c,d", "a,b,c,d,e,f", ",a,b,c,d", "a,b,c,d,", "a,,b,c,d", "a,b,c,d,,")) {
+            assertNull(processor.process(line), line);
+            assertNull(regexProcess(line), line);
+        }
+        assertNull(processor.process(null));
+    }
+
+    @Test
+    void filtersUpperCasesAndFillsEmptyFields() throws Exception {
+        assertEquals("HELLO WORLD,abc123,N/A,A.B-C,X Y", processor.process(" hello world ,abc123,*#!, a.b-c ,x y"));
+        assertEquals("CAF,N/A,42,1.5e3,MIXED CASE", processor.process("café,€,42,1.5e3,MiXeD cAsE"));
+        assertEquals("A\tB,C\u000BD,E\fF,G,H", processor.process("a\tb,c\u000Bd,e\ff,g,h"));
+    }
+
+    @Test
+    void fieldSpanningLineBreakIsUpperCasedDespiteDigits() throws Exception {
+        // .*\d+.* does not match across a line break, so the field counted as having no digit
+        String line = "ab1\ncd,x2,y,z,w";
+        assertEquals(regexProcess(line), processor.process(line));
+        assertEquals("AB1\nCD,x2,Y,Z,W", processor.process(line));
+        assertEquals(regexProcess("a\r1,b,c,d,e"), processor.process("a\r1,b,c,d,e"));
+    }
+
+    @Test
+    void upperCasesDottedIInTurkishLocale() throws Exception {
+        Locale previous = Locale.getDefault();
+        try {
+            for (String language : List.of("tr", "az", "en")) {
+                Locale.setDefault(Locale.forLanguageTag(language));
+                String line = "istanbul,izmir,i,id9,bit";
+                assertEquals(regexProcess(line), processor.process(line), language);
+            }
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            assertEquals("İSTANBUL,İZMİR,İ,id9,BİT", processor.process("istanbul,izmir,i,id9,bit"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void matchesRegexImplementationOnRandomLines() throws Exception {
+        String alphabet = "abcxyzABCXYZ0189 ,,,,.-_\t\n\r\u000B\féıİi#\"'";
+        Random random = new Random(20240101);
+        for (int n = 0; n < 50_000; n++) {
+            int length = random.nextInt(24);
+            StringBuilder line = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String value = line.toString();
+            assertEquals(regexProcess(value), processor.process(value), () -> "line: " + value.replace("\n", "\\n"));
+        }
+    }
+
+    private static String regexProcess(String line) {
+        if (line == null || line.trim().isEmpty()) {
+            return null;
+        }
+        if (!CSV_PATTERN.matcher(line).matches()) {
+            return null;
+        }
+        String[] fields = line.split(",");
+        if (fields.length != 5) {
+            return null;
+        }
+        StringBuilder processedLine = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i].trim().replaceAll("[^a-zA-Z0-9\\s,.-]", "");
+            if (!field.matches(".*\\d+.*")) {
+                field = field.toUpperCase();
+            }
+            field = field.trim();
+            processedLine.append(field.isEmpty() ? "N/A" : field);
+            if (i < fields.length - 1) {
+                processedLine.append(",");
+            }
+        }
+        return processedLine.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.batchjobs.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedLineRangeReaderTest {
+    private static final String CONTENT = "one\r\n# comment\ntwo\nthree\r\nfünf\nsix";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsOnlyTheLinesOfItsRange() throws Exception {
+        Path file = write();
+        long split = CONTENT.indexOf("three");
+        long length = Files.size(file);
+
+        assertEquals(List.of("one", "two"), readAll(file, 0, split, new ExecutionContext()));
+        assertEquals(List.of("three", "fünf", "six"), readAll(file, split, length, new ExecutionContext()));
+    }
+
+    @Test
+    void restartContinuesAfterTheCommittedLine() throws Exception {
+        Path file = write();
+        long length = Files.size(file);
+        ExecutionContext context = new ExecutionContext();
+        MappedLineRangeReader reader = new MappedLineRangeReader(file, 0, length, "reader");
+        reader.open(context);
+        assertEquals("one", reader.read());
+        assertEquals("two", reader.read());
+        reader.update(context);
+        // Read but never committed by the failed execution
+        assertEquals("three", reader.read());
+        reader.close();
+
+        assertEquals(List.of("three", "fünf", "six"), readAll(file, 0, length, context));
+    }
+
+    private Path write() throws Exception {
+        Path file = dir.resolve("input.csv");
+        Files.write(file, CONTENT.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> readAll(Path file, long start, long end, ExecutionContext context) throws Exception {
+        MappedLineRangeReader reader = new MappedLineRangeReader(file, start, end, "reader");
+        reader.open(context);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.read()) != null) {
+            lines.add(line);
+        }
+        assertNull(reader.read());
+        reader.close();
+        return lines;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.batchjobs.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OffsetLineReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void stripsLineEndingsAndSkipsComments() throws Exception {
+        Path file = write("one\r\n# comment\n\ntwo\nfünf");
+        assertEquals(List.of("one", "", "two", "fünf"), readAll(new OffsetLineReader(file, "reader"), new ExecutionContext()));
+    }
+
+    @Test
+    void readsLinesLongerThanTheBuffer() throws Exception {
+        String longLine = "x".repeat(200_000);
+        Path file = write("a\n" + longLine + "\nb\n");
+        assertEquals(List.of("a", longLine, "b"), readAll(new OffsetLineReader(file, "reader"), new ExecutionContext()));
+    }
+
+    @Test
+    void restartSeeksToTheCommittedOffset() throws Exception {
+        Path file = write("one\ntwo\nthree\nfour\n");
+        ExecutionContext context = new ExecutionContext();
+        OffsetLineReader reader = new OffsetLineReader(file, "reader");
+        reader.open(context);
+        assertEquals("one", reader.read());
+        assertEquals("two", reader.read());
+        reader.update(context);
+        // Read but never committed by the failed execution
+        assertEquals("three", reader.read());
+        reader.close();
+
+        assertEquals(8L, context.getLong("reader." + OffsetLineReader.POSITION_KEY));
+        assertEquals(List.of("three", "four"), readAll(new OffsetLineReader(file, "reader"), context));
+    }
+
+    @Test
+    void withoutSavedStateRestartReadsFromTheStart() throws Exception {
+        Path file = write("one\ntwo\n");
+        ExecutionContext context = new ExecutionContext();
+        context.putLong("reader." + OffsetLineReader.POSITION_KEY, 4L);
+        OffsetLineReader reader = new OffsetLineReader(file, "reader");
+        reader.setSaveState(false);
+
+        assertEquals(List.of("one", "two"), readAll(reader, context));
+        assertEquals(4L, context.getLong("reader." + OffsetLineReader.POSITION_KEY));
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.write(dir.resolve("input.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(OffsetLineReader reader, ExecutionContext context) throws Exception {
+        reader.open(context);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.read()) != null) {
+            lines.add(line);
+        }
+        reader.update(context);
+        reader.close();
+        return lines;
+    }
+}
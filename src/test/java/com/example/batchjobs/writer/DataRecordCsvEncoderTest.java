@@ -0,0 +1,70 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.model.DataRecord;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class DataRecordCsvEncoderTest {
+
+    @Test
+    void matchesCsvPrinterForEveryBufferBoundary() throws IOException {
+        List<DataRecord> records = List.of(
+                record(1L, "plain", "", null, LocalDateTime.of(2024, 1, 1, 0, 0)),
+                record(22L, "a,b", "say \"hi\"", "line\r\nbreak", LocalDateTime.of(2024, 2, 3, 4, 5, 6)),
+                record(333L, " leading", "trailing ", "#comment", LocalDateTime.of(2024, 12, 31, 23, 59, 59, 123_456_789)),
+                record(null, "é中😀", "\ud83d", "x", LocalDateTime.of(5, 6, 7, 8, 9, 10, 120_000_000)),
+                record(-4L, null, null, null, null),
+                record(55555L, "", "x", "y", LocalDateTime.of(12345, 1, 1, 1, 1, 1, 1_000)));
+        byte[] expected = print(records);
+
+        // Every buffer size up to the whole output, so each value ends on the boundary at least once
+        for (int bufferSize = 1; bufferSize <= expected.length + 1; bufferSize++) {
+            assertArrayEquals(expected, encode(records, bufferSize), "buffer size " + bufferSize);
+        }
+    }
+
+    private static byte[] print(List<DataRecord> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CSVPrinter printer = new CSVPrinter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)),
+                CSVFormat.DEFAULT.builder().setHeader("ID", "Field1", "Field2", "Field3", "Created At").build())) {
+            for (DataRecord record : records) {
+                printer.printRecord(record.getId(), record.getField1(), record.getField2(), record.getField3(),
+                        record.getCreatedAt());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(List<DataRecord> records, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DataRecordCsvEncoder encoder = new DataRecordCsvEncoder(out, bufferSize)) {
+            encoder.writeHeader();
+            for (DataRecord record : records) {
+                encoder.write(record);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static DataRecord record(Long id, String field1, String field2, String field3, LocalDateTime createdAt) {
+        DataRecord record = new DataRecord();
+        record.setId(id);
+        record.setField1(field1);
+        record.setField2(field2);
+        record.setField3(field3);
+        record.setCreatedAt(createdAt);
+        return record;
+    }
+}
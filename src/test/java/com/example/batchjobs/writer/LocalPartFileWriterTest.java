@@ -0,0 +1,57 @@
+package com.example.batchjobs.writer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalPartFileWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void retriedChunkIsWrittenOnce() throws Exception {
+        Path part = dir.resolve("input.part0");
+        ExecutionContext context = new ExecutionContext();
+        LocalPartFileWriter writer = new LocalPartFileWriter(part, "writer");
+        writer.open(context);
+        writer.write(new Chunk<>("a", "b"));
+        writer.update(context);
+        // Rolled back after reaching the file, then retried
+        writer.write(new Chunk<>("c", "d"));
+        writer.write(new Chunk<>("c", "d"));
+        writer.update(context);
+        writer.close();
+
+        assertEquals("a\nb\nc\nd\n", Files.readString(part));
+        assertEquals(8L, context.getLong("writer.bytes"));
+    }
+
+    @Test
+    void restartTruncatesToCommittedLength() throws Exception {
+        Path part = dir.resolve("input.part0");
+        ExecutionContext context = new ExecutionContext();
+        LocalPartFileWriter writer = new LocalPartFileWriter(part, "writer");
+        writer.open(context);
+        writer.write(new Chunk<>("a"));
+        writer.update(context);
+        // The step fails after this chunk reached the file but before it was committed
+        writer.write(new Chunk<>("b"));
+        writer.close();
+
+        LocalPartFileWriter restarted = new LocalPartFileWriter(part, "writer");
+        restarted.open(context);
+        restarted.write(new Chunk<>("b", "c"));
+        restarted.update(context);
+        restarted.close();
+
+        assertEquals("a\nb\nc\n", Files.readString(part));
+        assertEquals(6L, context.getLong("writer.bytes"));
+        assertEquals(part.toString(), context.getString(LocalPartFileWriter.PART_FILE_KEY));
+    }
+}
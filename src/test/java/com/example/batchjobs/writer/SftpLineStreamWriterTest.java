@@ -0,0 +1,145 @@
+package com.example.batchjobs.writer;
+
+import com.example.batchjobs.codec.DeflateTransferCodec;
+import com.example.batchjobs.codec.GzipTransferCodec;
+import com.example.batchjobs.codec.IdentityTransferCodec;
+import com.example.batchjobs.codec.TransferCodec;
+import com.example.batchjobs.service.SftpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SftpLineStreamWriterTest {
+    @TempDir
+    Path dir;
+
+    // Remote files as the server holds them: only what was flushed or closed
+    private final Map<String, byte[]> remoteFiles = new HashMap<>();
+    private final SftpService sftpService = mock(SftpService.class);
+    private Path sourceFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sourceFile = Files.writeString(dir.resolve("input.csv"), "ignored");
+        when(sftpService.openUploadStream(anyString(), anyLong())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            long offset = invocation.getArgument(1);
+            // Like SftpService, an upload stream continues the remote file at the given offset
+            byte[] existing = remoteFiles.getOrDefault(name, new byte[0]);
+            RemoteStream stream = new RemoteStream(name);
+            stream.write(existing, 0, (int) offset);
+            stream.flush();
+            return stream;
+        });
+    }
+
+    @Test
+    void rolledBackChunkIsUploadedOnce() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        SftpLineStreamWriter writer = writer(new IdentityTransferCodec());
+        writer.open(context);
+        writer.write(new Chunk<>("a", "b"));
+        writer.update(context);
+        // Reached the stream, then rolled back by a later failure in the chunk transaction
+        writer.write(new Chunk<>("c"));
+        writer.write(new Chunk<>("c"));
+        writer.update(context);
+        writer.afterStep(execution(BatchStatus.COMPLETED));
+        writer.close();
+
+        assertEquals("a\nb\nc\n", new String(remoteFiles.get("input.csv.part"), StandardCharsets.UTF_8));
+        verify(sftpService).renameFile("input.csv.part", "input.csv");
+        assertTrue(Files.exists(dir.resolve("archive").resolve("input.csv")));
+    }
+
+    @Test
+    void restartContinuesStagedFileAfterLastCommittedSegment() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        SftpLineStreamWriter failed = writer(new GzipTransferCodec(6));
+        failed.open(context);
+        failed.write(new Chunk<>("a"));
+        failed.update(context);
+        failed.write(new Chunk<>("b"));
+        failed.afterStep(execution(BatchStatus.FAILED));
+        failed.close();
+
+        SftpLineStreamWriter restarted = writer(new GzipTransferCodec(6));
+        restarted.open(context);
+        restarted.write(new Chunk<>("b", "c"));
+        restarted.update(context);
+        restarted.afterStep(execution(BatchStatus.COMPLETED));
+        restarted.close();
+
+        byte[] uploaded = remoteFiles.get("input.csv.gz.part");
+        assertEquals("a\nb\nc\n", new String(new GzipTransferCodec(6).decode(new ByteArrayInputStream(uploaded)).readAllBytes(),
+                StandardCharsets.UTF_8));
+        assertEquals(uploaded.length, context.getLong(SftpLineStreamWriter.BYTES_KEY));
+    }
+
+    @Test
+    void rolledBackChunkFailsTheStepForCodecsThatCannotContinue() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        SftpLineStreamWriter writer = writer(new DeflateTransferCodec(6));
+        writer.open(context);
+        writer.write(new Chunk<>("a"));
+
+        assertThrows(ItemStreamException.class, () -> writer.write(new Chunk<>("a")));
+        writer.afterStep(execution(BatchStatus.FAILED));
+        verify(sftpService).deleteFile("input.csv.deflate.part");
+    }
+
+    private SftpLineStreamWriter writer(TransferCodec codec) {
+        SftpLineStreamWriter writer = new SftpLineStreamWriter(sftpService, codec, sourceFile, dir.resolve("archive"));
+        writer.beforeStep(execution(BatchStatus.STARTED));
+        return writer;
+    }
+
+    private static StepExecution execution(BatchStatus status) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.setStatus(status);
+        return stepExecution;
+    }
+
+    private final class RemoteStream extends ByteArrayOutputStream {
+        private final String name;
+
+        private RemoteStream(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void flush() {
+            remoteFiles.put(name, Arrays.copyOf(buf, count));
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}